@@ -0,0 +1,60 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of JSON string encoding on ASCII and escape-heavy strings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUtilsBenchmark {
+
+    @Param({ "16", "1024", "65536" })
+    public int length;
+
+    private String ascii;
+    private String escapeHeavy;
+    private final StringBuilder buf = new StringBuilder();
+
+    @Setup
+    public void setup() {
+        ascii = SyntheticData.string(length, false);
+        escapeHeavy = SyntheticData.string(length, true);
+    }
+
+    @Benchmark
+    public int encodeAscii() {
+        buf.setLength(0);
+        return JsonUtils.encodeEntity(ascii, buf).length();
+    }
+
+    @Benchmark
+    public int encodeEscapeHeavy() {
+        buf.setLength(0);
+        return JsonUtils.encodeEntity(escapeHeavy, buf).length();
+    }
+
+    @Benchmark
+    public String encodeAsciiToString() {
+        return JsonUtils.encodeEntity(ascii);
+    }
+}
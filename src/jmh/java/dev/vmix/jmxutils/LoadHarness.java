@@ -0,0 +1,432 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.RMIClientSocketFactory;
+import java.rmi.server.RMIServerSocketFactory;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+import javax.management.remote.rmi.RMIConnectorServer;
+
+import static dev.vmix.jmxutils.CliHelper.*;
+
+/**
+ * Load harness of JmxClient against an in-process JMX connector server on loopback.
+ * <p>
+ * Synthetic MBeans are registered to a private MBeanServer, which is exported by an RMI connector with its own
+ * RMI registry bound to the loopback address. Worker threads call the operation repeatedly, and throughput,
+ * latency percentiles and bytes transferred through the connector are reported.
+ * </p>
+ */
+public class LoadHarness {
+
+    private static final String[] HELP_MESSAGE = {
+        "Usage: java -cp jmxutils-benchmarks.jar dev.vmix.jmxutils.LoadHarness [OPTIONS]",
+        "",
+        "[OPTIONS]",
+        "-o OP      - operation: list, info or stream. (default: info)",
+        "-b BEANS   - number of MBeans. (default: 100)",
+        "-a ATTRS   - number of attributes per MBean. (default: 16)",
+        "-s SIZE    - payload size per attribute. (default: 64)",
+        "-n THREADS - number of worker threads. (default: 4)",
+        "-w WARMUP  - warmup time in seconds. 0 disables warmup. (default: 5)",
+        "-d TIME    - measurement time in seconds. (default: 10)",
+        "-C         - connect one client per thread. (default: one client shared by all threads)"
+    };
+
+    private static final String DOMAIN = "dev.vmix.jmxutils.load";
+
+    /**
+     * Operation against target.
+     */
+    private enum Op {
+        LIST, INFO, STREAM
+    }
+
+    /**
+     * Counters of bytes transferred through client sockets created by {@link CountingSocketFactory}.
+     */
+    private static final AtomicLong BYTES_SENT = new AtomicLong();
+    private static final AtomicLong BYTES_RECEIVED = new AtomicLong();
+
+    /**
+     * Client socket factory which counts bytes transferred.
+     * <p>
+     * This is embedded in the stub of the connector server, so every connection of the client to the server is
+     * counted. (the registry lookup is not)
+     * </p>
+     */
+    public static class CountingSocketFactory implements RMIClientSocketFactory, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return new Socket(host, port) {
+
+                private InputStream in = null;
+                private OutputStream out = null;
+
+                @Override
+                public synchronized InputStream getInputStream() throws IOException {
+                    if (in == null) {
+                        in = new FilterInputStream(super.getInputStream()) {
+
+                            @Override
+                            public int read() throws IOException {
+                                int b = super.read();
+                                if (b >= 0) {
+                                    BYTES_RECEIVED.incrementAndGet();
+                                }
+                                return b;
+                            }
+
+                            @Override
+                            public int read(byte[] b, int off, int len) throws IOException {
+                                int n = super.read(b, off, len);
+                                if (n > 0) {
+                                    BYTES_RECEIVED.addAndGet(n);
+                                }
+                                return n;
+                            }
+                        };
+                    }
+                    return in;
+                }
+
+                @Override
+                public synchronized OutputStream getOutputStream() throws IOException {
+                    if (out == null) {
+                        out = new FilterOutputStream(super.getOutputStream()) {
+
+                            @Override
+                            public void write(int b) throws IOException {
+                                out.write(b);
+                                BYTES_SENT.incrementAndGet();
+                            }
+
+                            @Override
+                            public void write(byte[] b, int off, int len) throws IOException {
+                                out.write(b, off, len);
+                                BYTES_SENT.addAndGet(len);
+                            }
+                        };
+                    }
+                    return out;
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj != null && obj.getClass() == getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
+
+    /**
+     * Server socket factory which binds to the loopback address only.
+     */
+    private static class LoopbackServerSocketFactory implements RMIServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            ServerSocket serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            return serverSocket;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj != null && obj.getClass() == getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
+
+    /**
+     * Latencies recorded by one worker thread.
+     */
+    private static class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int count = 0;
+        private long errors = 0;
+
+        private void record(long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+    }
+
+    private Op op = Op.INFO;
+    private int beans = 100;
+    private int attrs = 16;
+    private int payloadSize = 64;
+    private int threads = 4;
+    private long warmupNanos = TimeUnit.SECONDS.toNanos(5);
+    private long measureNanos = TimeUnit.SECONDS.toNanos(10);
+    private boolean clientPerThread = false;
+
+    private static void help(String... msgs) {
+        for (String msg : msgs) {
+            System.err.println(msg);
+        }
+        if (msgs.length > 0) {
+            System.err.println();
+        }
+        for (String line : HELP_MESSAGE) {
+            System.err.println(line);
+        }
+        System.exit(1);
+    }
+
+    private static int parsePositive(String option, String value) {
+        if (value == null || !value.matches("[1-9]\\d*")) {
+            help("[ERROR] Invalid value of option " + option + ": " + value);
+        }
+        return Integer.parseInt(value);
+    }
+
+    private static int parseNonNegative(String option, String value) {
+        if (value == null || !value.matches("0|[1-9]\\d*")) {
+            help("[ERROR] Invalid value of option " + option + ": " + value);
+        }
+        return Integer.parseInt(value);
+    }
+
+    private void parseArgs(String[] args) {
+        LinkedList<String> argList = new LinkedList<>(Arrays.asList(args));
+        while (!argList.isEmpty()) {
+            String option = argList.removeFirst();
+            switch (option) {
+            case "-C":
+                clientPerThread = true;
+                continue;
+            case "-help":
+            case "--help":
+                help();
+                break;
+            default:
+                break;
+            }
+            String value = argList.pollFirst();
+            switch (option) {
+            case "-o":
+                try {
+                    op = Op.valueOf(String.valueOf(value).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    help("[ERROR] Invalid operation: " + value);
+                }
+                break;
+            case "-b":
+                beans = parsePositive(option, value);
+                break;
+            case "-a":
+                attrs = parsePositive(option, value);
+                break;
+            case "-s":
+                payloadSize = parsePositive(option, value);
+                break;
+            case "-n":
+                threads = parsePositive(option, value);
+                break;
+            case "-w":
+                warmupNanos = TimeUnit.SECONDS.toNanos(parseNonNegative(option, value));
+                break;
+            case "-d":
+                measureNanos = TimeUnit.SECONDS.toNanos(parsePositive(option, value));
+                break;
+            default:
+                help("[ERROR] Unknown option: " + option);
+                break;
+            }
+        }
+    }
+
+    private static void execute(JmxClient client, Op op, ObjectName[] names, ObjectName pattern) throws IOException {
+        switch (op) {
+        case LIST:
+            client.getMBeanNames(pattern);
+            break;
+        case INFO:
+            client.getMBeanInfo(names[ThreadLocalRandom.current().nextInt(names.length)]);
+            break;
+        case STREAM:
+            client.streamMBeanInfo(names[ThreadLocalRandom.current().nextInt(names.length)],
+                (name, value, typeName, description) -> {
+                    // Discarded.
+                });
+            break;
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private void run() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName[] names = new ObjectName[beans];
+        SyntheticMBean mbean = new SyntheticMBean(attrs, payloadSize);
+        for (int i = 0; i < beans; i++) {
+            names[i] = new ObjectName(DOMAIN + ":type=Synthetic,id=" + i);
+            server.registerMBean(mbean, names[i]);
+        }
+        ObjectName pattern = new ObjectName(DOMAIN + ":*");
+        RMIServerSocketFactory ssf = new LoopbackServerSocketFactory();
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        int registryPort;
+        // A registry on an anonymous port cannot be looked up by URL, so take a free port first.
+        try (ServerSocket probe = ssf.createServerSocket(0)) {
+            registryPort = probe.getLocalPort();
+        }
+        Registry registry = LocateRegistry.createRegistry(registryPort, null, ssf);
+        Map<String, Object> env = new HashMap<>();
+        env.put(RMIConnectorServer.RMI_CLIENT_SOCKET_FACTORY_ATTRIBUTE, new CountingSocketFactory());
+        env.put(RMIConnectorServer.RMI_SERVER_SOCKET_FACTORY_ATTRIBUTE, ssf);
+        JMXServiceURL url = new JMXServiceURL(
+            String.format("service:jmx:rmi://%s/jndi/rmi://%s:%d/jmxrmi", host, host, registryPort));
+        JMXConnectorServer connectorServer = JMXConnectorServerFactory.newJMXConnectorServer(url, env, server);
+        connectorServer.start();
+        String addr = connectorServer.getAddress().toString();
+        info(String.format("Server: %s (%d beans x %d attributes x payload %d)", addr, beans, attrs, payloadSize));
+        List<JmxClient> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < (clientPerThread ? threads : 1); i++) {
+                clients.add(new JmxClient(addr));
+            }
+            Recorder[] recorders = new Recorder[threads];
+            CountDownLatch done = new CountDownLatch(threads);
+            long start = System.nanoTime();
+            long measureStart = start + warmupNanos;
+            long end = measureStart + measureNanos;
+            long[] bytesAtStart = {BYTES_SENT.get(), BYTES_RECEIVED.get()};
+            for (int i = 0; i < threads; i++) {
+                Recorder recorder = recorders[i] = new Recorder();
+                JmxClient client = clients.get(clientPerThread ? i : 0);
+                Thread thread = new Thread(() -> {
+                    try {
+                        long now;
+                        while ((now = System.nanoTime()) < end) {
+                            try {
+                                execute(client, op, names, pattern);
+                                long latency = System.nanoTime() - now;
+                                if (now >= measureStart) {
+                                    recorder.record(latency);
+                                }
+                            } catch (IOException | RuntimeException e) {
+                                if (now >= measureStart) {
+                                    recorder.errors++;
+                                }
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }, "load-worker-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            if (warmupNanos > 0) {
+                long warmupRemainingMillis = TimeUnit.NANOSECONDS.toMillis(measureStart - System.nanoTime());
+                if (warmupRemainingMillis > 0) {
+                    Thread.sleep(warmupRemainingMillis);
+                }
+                bytesAtStart[0] = BYTES_SENT.get();
+                bytesAtStart[1] = BYTES_RECEIVED.get();
+            }
+            done.await();
+            long sent = BYTES_SENT.get() - bytesAtStart[0];
+            long received = BYTES_RECEIVED.get() - bytesAtStart[1];
+            report(recorders, sent, received);
+        } finally {
+            for (JmxClient client : clients) {
+                client.close();
+            }
+            connectorServer.stop();
+            UnicastRemoteObject.unexportObject(registry, true);
+        }
+    }
+
+    private void report(Recorder[] recorders, long sent, long received) {
+        int total = 0;
+        long errors = 0;
+        for (Recorder recorder : recorders) {
+            total += recorder.count;
+            errors += recorder.errors;
+        }
+        long[] latencies = new long[total];
+        int pos = 0;
+        for (Recorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, latencies, pos, recorder.count);
+            pos += recorder.count;
+        }
+        Arrays.sort(latencies);
+        double seconds = measureNanos / 1e9;
+        System.out.printf("operation:   %s (%d threads, %s)%n", op.name().toLowerCase(), threads,
+            clientPerThread ? "client per thread" : "shared client");
+        System.out.printf("operations:  %d (errors: %d)%n", total, errors);
+        System.out.printf("throughput:  %.1f ops/s%n", total / seconds);
+        System.out.printf("latency:     p50=%.3f ms, p99=%.3f ms, max=%.3f ms%n",
+            millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+            millis(percentile(latencies, 1.0)));
+        System.out.printf("transferred: sent=%d bytes, received=%d bytes%n", sent, received);
+        if (total > 0) {
+            System.out.printf("per op:      sent=%d bytes, received=%d bytes%n", sent / total, received / total);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadHarness harness = new LoadHarness();
+        harness.parseArgs(args);
+        harness.run();
+        exit();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.openmbean.CompositeData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.vmix.jmxutils.models.JmxCursor;
+import dev.vmix.jmxutils.models.JmxElem;
+import dev.vmix.jmxutils.models.JmxElem.ElemType;
+import dev.vmix.jmxutils.models.JmxElem.Walker;
+import dev.vmix.jmxutils.models.JmxElemUtils;
+
+/**
+ * Benchmarks of wrapping attribute values into elements, and of walking the elements.
+ * <p>
+ * Containers are "width" entries per level and "depth" levels deep. Arrays have "width" * "depth" items.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    private static final Walker COUNTER = new Walker() {
+
+        @Override
+        public boolean callback(Walker walker, JmxElem<?> elem, boolean isFirst, boolean isLast,
+            ElemType parentElemType, String... parentKeys) {
+            if (elem.getElemType() != ElemType.ENTITY) {
+                return elem.walk(walker, parentKeys, elem.getName());
+            }
+            return true;
+        }
+    };
+
+    @Param({ "4", "32" })
+    public int width;
+
+    @Param({ "1", "3" })
+    public int depth;
+
+    private CompositeData composite;
+    private Map<String, Object> map;
+    private long[] longs;
+    private Long[] boxedLongs;
+    private JmxElem<?> wrappedComposite;
+    private JmxElem<?> wrappedMap;
+    private JmxElem<?> wrappedLongs;
+    private JmxElem<?> wrappedBoxedLongs;
+
+    @Setup
+    public void setup() {
+        composite = SyntheticData.composite(SyntheticData.compositeType(width, depth));
+        map = SyntheticData.map(width, depth);
+        longs = SyntheticData.longs(width * depth);
+        boxedLongs = SyntheticData.boxedLongs(width * depth);
+        wrappedComposite = JmxElemUtils.wrap("composite", composite, null, null);
+        wrappedMap = JmxElemUtils.wrap("map", map, null, null);
+        wrappedLongs = JmxElemUtils.wrap("longs", longs, null, null);
+        wrappedBoxedLongs = JmxElemUtils.wrap("boxedLongs", boxedLongs, null, null);
+    }
+
+    private static int countByCursor(JmxElem<?> elem) {
+        int count = 0;
+        JmxCursor cursor = new JmxCursor(elem);
+        while (cursor.next()) {
+            if (cursor.getEvent() == JmxCursor.Event.ENTITY) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public JmxElem<?> wrapComposite() {
+        return JmxElemUtils.wrap("composite", composite, null, null);
+    }
+
+    @Benchmark
+    public JmxElem<?> wrapMap() {
+        return JmxElemUtils.wrap("map", map, null, null);
+    }
+
+    @Benchmark
+    public JmxElem<?> wrapLongs() {
+        return JmxElemUtils.wrap("longs", longs, null, null);
+    }
+
+    @Benchmark
+    public JmxElem<?> wrapBoxedLongs() {
+        return JmxElemUtils.wrap("boxedLongs", boxedLongs, null, null);
+    }
+
+    @Benchmark
+    public boolean walkComposite() {
+        return wrappedComposite.walk(COUNTER);
+    }
+
+    @Benchmark
+    public boolean walkMap() {
+        return wrappedMap.walk(COUNTER);
+    }
+
+    @Benchmark
+    public boolean walkLongs() {
+        return wrappedLongs.walk(COUNTER);
+    }
+
+    @Benchmark
+    public boolean walkBoxedLongs() {
+        return wrappedBoxedLongs.walk(COUNTER);
+    }
+
+    @Benchmark
+    public int cursorComposite() {
+        return countByCursor(wrappedComposite);
+    }
+
+    @Benchmark
+    public int cursorMap() {
+        return countByCursor(wrappedMap);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.vmix.jmxutils.models.JmxElemUtils;
+
+/**
+ * End-to-end benchmarks of "show" against an in-process MBeanServer exported by a loopback RMI connector.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShowBenchmark {
+
+    /**
+     * Writer which discards all characters and counts them.
+     */
+    private static class CountingWriter extends Writer {
+
+        private long count = 0;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Param({ "16" })
+    public int attrCount;
+
+    @Param({ "16", "1024" })
+    public int payloadSize;
+
+    @Param({ "false", "true" })
+    public boolean verbose;
+
+    private JMXConnectorServer connectorServer;
+    private JmxClient client;
+    private ObjectName objectName;
+
+    @Setup
+    public void setup() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        objectName = new ObjectName("dev.vmix.jmxutils.benchmark:type=Synthetic");
+        server.registerMBean(new SyntheticMBean(attrCount, payloadSize), objectName);
+        connectorServer = JMXConnectorServerFactory.newJMXConnectorServer(
+            new JMXServiceURL("service:jmx:rmi://localhost"), null, server);
+        connectorServer.start();
+        client = new JmxClient(connectorServer.getAddress().toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        connectorServer.stop();
+    }
+
+    @Benchmark
+    public long showTree() throws IOException {
+        CountingWriter out = new CountingWriter();
+        JsonWriter writer = new JsonWriter(out, verbose, false);
+        writer.beginDocument();
+        writer.writeContents(client.getMBeanInfo(objectName));
+        writer.endDocument();
+        return out.count;
+    }
+
+    @Benchmark
+    public long showStream() throws IOException {
+        CountingWriter out = new CountingWriter();
+        JsonWriter writer = new JsonWriter(out, verbose, false);
+        writer.beginDocument();
+        client.streamMBeanInfo(objectName,
+            (name, value, typeName, description) -> writer.write(name,
+                JmxElemUtils.wrap(name, value, typeName, description)));
+        writer.endDocument();
+        return out.count;
+    }
+}
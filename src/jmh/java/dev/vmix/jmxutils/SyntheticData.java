@@ -0,0 +1,146 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+
+/**
+ * Synthetic attribute values for benchmarks.
+ */
+public final class SyntheticData {
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Create string.
+     *
+     * @param length length.
+     * @param escapeHeavy true if every other character needs to be escaped in JSON.
+     * @return string.
+     */
+    public static String string(int length, boolean escapeHeavy) {
+        StringBuilder buf = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            if (escapeHeavy && i % 2 == 1) {
+                buf.append("\"\\\n\t\u0001".charAt(i / 2 % 5));
+            } else {
+                buf.append((char) ('a' + i % 26));
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Create long array.
+     *
+     * @param size size.
+     * @return array.
+     */
+    public static long[] longs(int size) {
+        long[] array = new long[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = i * 1_000_003L;
+        }
+        return array;
+    }
+
+    /**
+     * Create boxed long array.
+     *
+     * @param size size.
+     * @return array.
+     */
+    public static Long[] boxedLongs(int size) {
+        Long[] array = new Long[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = i * 1_000_003L;
+        }
+        return array;
+    }
+
+    /**
+     * Create nested map. Leaves are Long and String values alternately.
+     *
+     * @param width the number of entries per map.
+     * @param depth the number of nested levels. (1 means a flat map)
+     * @return map.
+     */
+    public static Map<String, Object> map(int width, int depth) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < width; i++) {
+            String key = "item" + i;
+            if (depth > 1) {
+                map.put(key, map(width, depth - 1));
+            } else if (i % 2 == 0) {
+                map.put(key, (long) i);
+            } else {
+                map.put(key, "value" + i);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Create type of nested CompositeData.
+     *
+     * @param width the number of items per level.
+     * @param depth the number of nested levels. (1 means a flat CompositeData)
+     * @return type.
+     */
+    public static CompositeType compositeType(int width, int depth) {
+        String[] names = new String[width];
+        OpenType<?>[] types = new OpenType<?>[width];
+        CompositeType nested = depth > 1 ? compositeType(width, depth - 1) : null;
+        for (int i = 0; i < width; i++) {
+            names[i] = "item" + i;
+            if (nested != null) {
+                types[i] = nested;
+            } else {
+                types[i] = i % 2 == 0 ? SimpleType.LONG : SimpleType.STRING;
+            }
+        }
+        String typeName = "Synthetic" + width + "x" + depth;
+        try {
+            return new CompositeType(typeName, typeName, names, names, types);
+        } catch (OpenDataException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Create nested CompositeData.
+     *
+     * @param type type created by {@link #compositeType(int, int)}.
+     * @return CompositeData.
+     */
+    public static CompositeData composite(CompositeType type) {
+        Map<String, Object> items = new LinkedHashMap<>();
+        int i = 0;
+        for (String name : type.keySet()) {
+            OpenType<?> itemType = type.getType(name);
+            if (itemType instanceof CompositeType) {
+                items.put(name, composite((CompositeType) itemType));
+            } else if (itemType == SimpleType.LONG) {
+                items.put(name, (long) i);
+            } else {
+                items.put(name, "value" + i);
+            }
+            i++;
+        }
+        try {
+            return new CompositeDataSupport(type, items);
+        } catch (OpenDataException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeType;
+
+/**
+ * MBean with synthetic attributes for benchmarks.
+ * <p>
+ * Attributes are named "Attr0", "Attr1", ..., and their types are long, String, long[] and CompositeData in
+ * rotation. The payload size is the length of String, the size of long[], and the width of CompositeData (2 levels).
+ * </p>
+ */
+public class SyntheticMBean implements DynamicMBean {
+
+    private final MBeanInfo info;
+    private final Object[] values;
+
+    /**
+     * Constructor.
+     *
+     * @param attrCount the number of attributes.
+     * @param payloadSize payload size of each attribute.
+     */
+    public SyntheticMBean(int attrCount, int payloadSize) {
+        CompositeType cType = SyntheticData.compositeType(Math.max(payloadSize / 8, 1), 2);
+        CompositeData cData = SyntheticData.composite(cType);
+        MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[attrCount];
+        values = new Object[attrCount];
+        for (int i = 0; i < attrCount; i++) {
+            String type;
+            switch (i % 4) {
+            case 0:
+                type = long.class.getName();
+                values[i] = (long) i;
+                break;
+            case 1:
+                type = String.class.getName();
+                values[i] = SyntheticData.string(payloadSize, false);
+                break;
+            case 2:
+                type = long[].class.getName();
+                values[i] = SyntheticData.longs(payloadSize);
+                break;
+            default:
+                type = CompositeData.class.getName();
+                values[i] = cData;
+                break;
+            }
+            attrs[i] = new MBeanAttributeInfo("Attr" + i, type, "Attribute " + i, true, false, false);
+        }
+        info = new MBeanInfo(getClass().getName(), "Synthetic MBean", attrs, null, null, null);
+    }
+
+    private int indexOf(String attribute) throws AttributeNotFoundException {
+        if (attribute.startsWith("Attr")) {
+            try {
+                int index = Integer.parseInt(attribute.substring(4));
+                if (index >= 0 && index < values.length) {
+                    return index;
+                }
+            } catch (NumberFormatException e) {
+                // fall through.
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        return values[indexOf(attribute)];
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Read only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList(attributes.length);
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Omitted from the result as MBeanServer does.
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException(actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        return info;
+    }
+}
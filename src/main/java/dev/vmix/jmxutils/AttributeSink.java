@@ -0,0 +1,50 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+
+import javax.management.ObjectName;
+
+/**
+ * Receiver of MBean attributes pushed by {@link JmxClient#streamMBeanInfo(ObjectName, AttributeSink)}.
+ * <p>
+ * Raw values are fetched together by one getAttributes call, and then passed one by one without being wrapped into
+ * elements. So the sink can wrap and render each attribute and let it go before the next one, but the raw values
+ * are all received before the first one is passed.
+ * </p>
+ */
+@FunctionalInterface
+public interface AttributeSink {
+
+    /**
+     * Begin MBean.
+     *
+     * @param objectName object name.
+     * @param className class name of MBean.
+     * @param description description of MBean.
+     * @throws IOException I/O error.
+     */
+    default void beginMBean(ObjectName objectName, String className, String description) throws IOException {
+    }
+
+    /**
+     * Receive attribute.
+     *
+     * @param name attribute name.
+     * @param value attribute value. (raw value, or "[ExceptionClass] message" if it cannot be read)
+     * @param typeName type name.
+     * @param description description.
+     * @throws IOException I/O error.
+     */
+    void attribute(String name, Object value, String typeName, String description) throws IOException;
+
+    /**
+     * End MBean.
+     *
+     * @throws IOException I/O error.
+     */
+    default void endMBean() throws IOException {
+    }
+}
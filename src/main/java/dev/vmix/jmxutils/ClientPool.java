@@ -0,0 +1,181 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Pool of open JMX clients keyed by target.
+ * <p>
+ * A client is connected on the first use of its target, and shared by concurrent commands against the target.
+ * Clients unused for the idle timeout are closed by a background thread, and a client whose connection fails by a
+ * communication error or timeout is discarded, so the next command connects again. Errors of commands themselves,
+ * such as I/O errors of their output, do not discard the client.
+ * </p>
+ */
+public class ClientPool implements Closeable {
+
+    /**
+     * Command executed with pooled client.
+     *
+     * @param <R> result type.
+     */
+    @FunctionalInterface
+    public interface IOCommand<R> {
+
+        R execute(JmxClient client) throws IOException;
+    }
+
+    private static class Entry {
+
+        private JmxClient client = null;
+        private int inUse = 0;
+        private long lastUsedNanos = System.nanoTime();
+        private boolean discarded = false;
+
+        private synchronized JmxClient connect(Target target, Function<String, JmxClient> clientFactory) {
+            if (client == null) {
+                String addr = target.getAddress();
+                if (addr == null) {
+                    throw new IllegalStateException("Cannot attach process: pid=" + target.getPid());
+                }
+                client = clientFactory.apply(addr);
+            }
+            return client;
+        }
+    }
+
+    private final Function<String, JmxClient> clientFactory;
+    private final long idleTimeoutNanos;
+    private final Map<Target, Entry> entries = new HashMap<>();
+    private final ScheduledExecutorService reaper;
+
+    /**
+     * Constructor.
+     *
+     * @param clientFactory factory of JMX client from connector address.
+     * @param idleTimeoutMillis idle timeout in milliseconds.
+     */
+    public ClientPool(Function<String, JmxClient> clientFactory, long idleTimeoutMillis) {
+        this.clientFactory = clientFactory;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "client-pool-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(idleTimeoutMillis / 2, 100);
+        reaper.scheduleWithFixedDelay(this::reapIdleClients, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void closeQuietly(JmxClient client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (IOException | RuntimeException e) {
+            // Ignored.
+        }
+    }
+
+    /**
+     * Execute command with the pooled client of the target.
+     *
+     * @param <R> result type.
+     * @param target target.
+     * @param command command.
+     * @return result.
+     * @throws IOException I/O error in the command.
+     */
+    public <R> R execute(Target target, IOCommand<R> command) throws IOException {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.computeIfAbsent(target, t -> new Entry());
+            entry.inUse++;
+        }
+        JmxClient client = null;
+        boolean broken = true;
+        try {
+            client = entry.connect(target, clientFactory);
+            R result = command.execute(client);
+            broken = false;
+            return result;
+        } catch (IOException | RuntimeException e) {
+            broken = client == null || client.isConnectionFailed();
+            throw e;
+        } finally {
+            release(target, entry, broken);
+        }
+    }
+
+    private void release(Target target, Entry entry, boolean broken) {
+        JmxClient toClose = null;
+        synchronized (entries) {
+            entry.inUse--;
+            entry.lastUsedNanos = System.nanoTime();
+            if (broken && !entry.discarded) {
+                entry.discarded = true;
+                entries.remove(target, entry);
+            }
+            if (entry.discarded && entry.inUse == 0) {
+                toClose = entry.client;
+            }
+        }
+        closeQuietly(toClose);
+    }
+
+    private void reapIdleClients() {
+        List<JmxClient> toClose = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (entries) {
+            for (Iterator<Entry> iter = entries.values().iterator(); iter.hasNext();) {
+                Entry entry = iter.next();
+                if (entry.inUse == 0 && now - entry.lastUsedNanos >= idleTimeoutNanos) {
+                    entry.discarded = true;
+                    iter.remove();
+                    toClose.add(entry.client);
+                }
+            }
+        }
+        toClose.forEach(ClientPool::closeQuietly);
+    }
+
+    /**
+     * Get the number of pooled clients.
+     *
+     * @return the number of pooled clients.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        reaper.shutdownNow();
+        List<JmxClient> toClose = new ArrayList<>();
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                entry.discarded = true;
+                if (entry.inUse == 0) {
+                    toClose.add(entry.client);
+                }
+            }
+            entries.clear();
+        }
+        toClose.forEach(ClientPool::closeQuietly);
+    }
+}
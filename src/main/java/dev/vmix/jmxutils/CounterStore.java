@@ -0,0 +1,149 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+/**
+ * Store of the previous values of series to compute deltas and rates between samples.
+ * <p>
+ * Each series (ObjectName and attribute path) is registered once and given an int ID. Previous values and their
+ * timestamps are kept in primitive arrays indexed by the ID, so an update allocates nothing. Timestamps must be
+ * monotonic, such as {@link System#nanoTime()}.
+ * </p>
+ * <p>
+ * A series is a gauge (e.g. "HeapMemoryUsage.used") or a counter (e.g. "CollectionCount"). A gauge which decreases
+ * has a negative delta. A counter which decreases is regarded as reset (e.g. the target is restarted), and its delta
+ * is the current value counted from zero. The result of {@link #update(int, Number, long, boolean)} is kept until the
+ * next update.
+ * </p>
+ */
+public final class CounterStore {
+
+    /**
+     * Result of update.
+     */
+    public enum Status {
+        /** No previous value. (no delta) */
+        FIRST,
+        /** Delta and rate are computed. */
+        OK,
+        /** Counter is reset. Delta and rate are computed from zero. (only for counters) */
+        RESET
+    }
+
+    // kind of the previous value. (0 means none)
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+
+    private final Map<ObjectName, Map<String, Integer>> ids = new HashMap<>();
+    private int size = 0;
+    private byte[] kinds = new byte[16];
+    private long[] lastValues = new long[16];
+    private long[] lastNanos = new long[16];
+
+    private boolean integral;
+    private long longDelta;
+    private double doubleDelta;
+    private double rate;
+
+    /**
+     * Get ID of series. The series is registered if it is new.
+     *
+     * @param objectName object name.
+     * @param path attribute path.
+     * @return series ID.
+     */
+    public int seriesId(ObjectName objectName, String path) {
+        return ids.computeIfAbsent(objectName, k -> new HashMap<>()).computeIfAbsent(path, k -> {
+            if (size == kinds.length) {
+                kinds = Arrays.copyOf(kinds, size * 2);
+                lastValues = Arrays.copyOf(lastValues, size * 2);
+                lastNanos = Arrays.copyOf(lastNanos, size * 2);
+            }
+            return size++;
+        });
+    }
+
+    /**
+     * Get the number of registered series.
+     *
+     * @return the number of series.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static boolean isIntegral(Number value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * Update the value of series, and compute delta and rate from the previous value.
+     *
+     * @param id series ID.
+     * @param value current value.
+     * @param nanos monotonic timestamp of the current value in nanoseconds.
+     * @param counter true if the series is a counter which is reset when it decreases.
+     * @return status.
+     */
+    public Status update(int id, Number value, long nanos, boolean counter) {
+        byte kind = isIntegral(value) ? LONG : DOUBLE;
+        byte lastKind = kinds[id];
+        long lastValue = lastValues[id];
+        long elapsedNanos = nanos - lastNanos[id];
+        kinds[id] = kind;
+        lastValues[id] = kind == LONG ? value.longValue() : Double.doubleToRawLongBits(value.doubleValue());
+        lastNanos[id] = nanos;
+        if (lastKind != kind) {
+            return Status.FIRST;
+        }
+        Status status;
+        integral = kind == LONG;
+        if (integral) {
+            long current = value.longValue();
+            status = counter && current < lastValue ? Status.RESET : Status.OK;
+            longDelta = status == Status.RESET ? current : current - lastValue;
+            doubleDelta = longDelta;
+        } else {
+            double current = value.doubleValue();
+            double last = Double.longBitsToDouble(lastValue);
+            status = counter && current < last ? Status.RESET : Status.OK;
+            doubleDelta = status == Status.RESET ? current : current - last;
+            longDelta = (long) doubleDelta;
+        }
+        rate = elapsedNanos > 0 ? doubleDelta * 1e9 / elapsedNanos : 0.0;
+        return status;
+    }
+
+    /**
+     * Check whether the last delta is integral.
+     *
+     * @return true if the last delta is computed from integral values.
+     */
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    public long getLongDelta() {
+        return longDelta;
+    }
+
+    public double getDoubleDelta() {
+        return doubleDelta;
+    }
+
+    /**
+     * Get the last rate.
+     *
+     * @return delta per second.
+     */
+    public double getRate() {
+        return rate;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import dev.vmix.jmxutils.models.JmxElemUtils;
+
+/**
+ * Daemon which answers list/show requests over HTTP on the loopback address with pooled connections.
+ * <p>
+ * Requests:
+ * </p>
+ * <ul>
+ * <li>GET /list?target=TARGET[&amp;pattern=PATTERN] - MBean names, one per line.
+ * <li>GET /show?target=TARGET&amp;name=NAME[&amp;verbose=true][&amp;compact=true][&amp;rows=ROWS] - MBean
+ * information as JSON.
+ * </ul>
+ * <p>
+ * TARGET is "HOST:PORT" or "PID". The response body is the same as the output of the command, and errors are
+ * answered with 4xx/5xx status and "[ExceptionClass] message". An error after the response has started (e.g. the
+ * connection to the target is lost while streaming attributes) drops the connection without the terminating chunk.
+ * </p>
+ */
+public class Daemon {
+
+    private static final String TEXT_TYPE = "text/plain; charset=UTF-8";
+    private static final String JSON_TYPE = "application/json; charset=UTF-8";
+
+    private final ClientPool pool;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor.
+     *
+     * @param pool client pool.
+     * @param port listen port on the loopback address. (0 means an ephemeral port)
+     * @throws IOException I/O error.
+     */
+    public Daemon(ClientPool pool, int port) throws IOException {
+        this.pool = pool;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "daemon-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/list", exchange -> handle(exchange, this::list));
+        server.createContext("/show", exchange -> handle(exchange, this::show));
+    }
+
+    /**
+     * Get the listen port.
+     *
+     * @return port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Start the daemon.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop the daemon, and close all pooled clients.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        pool.close();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        void handle(HttpExchange exchange, Map<String, String> params) throws IOException;
+    }
+
+    /**
+     * Error answered with status code.
+     */
+    private static class RequestException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String param : query.split("&")) {
+            if (param.isEmpty()) {
+                continue;
+            }
+            int index = param.indexOf('=');
+            String key = index < 0 ? param : param.substring(0, index);
+            String value = index < 0 ? "" : param.substring(index + 1);
+            params.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> params, String key) {
+        String value = params.get(key);
+        if (value == null || value.isEmpty()) {
+            throw new RequestException(400, "Missing parameter: " + key);
+        }
+        return value;
+    }
+
+    private static Target parseTarget(Map<String, String> params) {
+        try {
+            return Target.parse(required(params, "target"));
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, e.getMessage());
+        }
+    }
+
+    private static String errorMessage(Throwable t) {
+        if (t instanceof RequestException) {
+            return t.getMessage();
+        }
+        if (t instanceof RuntimeException && t.getClass() == RuntimeException.class && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return String.format("[%s] %s", t.getClass().getCanonicalName(), t.getMessage());
+    }
+
+    private static int errorStatus(Throwable t) {
+        if (t instanceof RequestException) {
+            return ((RequestException) t).status;
+        }
+        if (t instanceof RuntimeException && t.getCause() instanceof InstanceNotFoundException) {
+            return 404;
+        }
+        if (t instanceof IllegalArgumentException) {
+            return 400;
+        }
+        return 502;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                throw new RequestException(405, "Method not allowed: " + exchange.getRequestMethod());
+            }
+            handler.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (IOException | RuntimeException e) {
+            if (exchange.getResponseCode() >= 0) {
+                // The response is committed. Rethrow without closing the exchange, so the server drops the
+                // connection without the terminating chunk, and the client detects the truncated response.
+                throw e;
+            }
+            try {
+                byte[] body = (errorMessage(e) + "\n").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", TEXT_TYPE);
+                exchange.sendResponseHeaders(errorStatus(e), body.length);
+                exchange.getResponseBody().write(body);
+            } catch (IOException e2) {
+                // Ignored.
+            }
+        }
+        exchange.close();
+    }
+
+    private void list(HttpExchange exchange, Map<String, String> params) throws IOException {
+        Target target = parseTarget(params);
+        String pattern = params.get("pattern");
+        List<ObjectName> names = pool.execute(target, client -> client.findMBeanNames(pattern));
+        StringBuilder buf = new StringBuilder();
+        for (ObjectName name : names) {
+            buf.append(name).append('\n');
+        }
+        byte[] body = buf.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", TEXT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void show(HttpExchange exchange, Map<String, String> params) throws IOException {
+        Target target = parseTarget(params);
+        ObjectName objectName;
+        try {
+            objectName = new ObjectName(required(params, "name"));
+        } catch (MalformedObjectNameException e) {
+            throw new RequestException(400, e.getMessage());
+        }
+        boolean verbose = Boolean.parseBoolean(params.get("verbose"));
+        boolean compact = Boolean.parseBoolean(params.get("compact"));
+        String rowsStr = params.get("rows");
+        if (rowsStr != null && !rowsStr.matches("\\d{1,9}")) {
+            throw new RequestException(400, "Invalid number of rows: " + rowsStr);
+        }
+        int rowLimit = rowsStr != null ? Integer.parseInt(rowsStr) : Integer.MAX_VALUE;
+        OutputStream body = exchange.getResponseBody();
+        Writer out = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+        JsonWriter writer = new JsonWriter(out, verbose, compact, rowLimit);
+        pool.execute(target, client -> {
+            client.streamMBeanInfo(objectName, new AttributeSink() {
+
+                @Override
+                public void beginMBean(ObjectName name, String className, String description) throws IOException {
+                    // The MBean is found, so the response is committed to success here.
+                    exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+                    exchange.sendResponseHeaders(200, 0);
+                    writer.beginDocument();
+                }
+
+                @Override
+                public void attribute(String name, Object value, String typeName, String description)
+                    throws IOException {
+                    writer.write(name, JmxElemUtils.wrap(name, value, typeName, description));
+                }
+
+                @Override
+                public void endMBean() throws IOException {
+                    writer.endDocument();
+                }
+            });
+            return null;
+        });
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+
+import dev.vmix.jmxutils.models.JmxDiff;
+import dev.vmix.jmxutils.models.JmxElem;
+import dev.vmix.jmxutils.models.JmxElem.ElemType;
+import dev.vmix.jmxutils.models.JmxPath;
+
+/**
+ * Print differences of MBeans line by line.
+ * <ul>
+ * <li>"+ NAME" / "- NAME" - MBean is added / removed.
+ * <li>"+ NAME PATH: VALUE" / "- NAME PATH: VALUE" - element is added / removed.
+ * <li>"~ NAME PATH: OLD -&gt; NEW (DELTA)" - value is changed. (DELTA only for numbers)
+ * </ul>
+ * <p>
+ * Values are written as compact JSON.
+ * </p>
+ */
+public class DiffPrinter {
+
+    private final PrintStream out;
+
+    /**
+     * Constructor.
+     *
+     * @param out output.
+     */
+    public DiffPrinter(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Print added MBean.
+     *
+     * @param name object name.
+     */
+    public void added(String name) {
+        out.println("+ " + name);
+    }
+
+    /**
+     * Print removed MBean.
+     *
+     * @param name object name.
+     */
+    public void removed(String name) {
+        out.println("- " + name);
+    }
+
+    /**
+     * Compare information of MBean, and print the differences.
+     *
+     * @param name object name.
+     * @param oldElem old information.
+     * @param newElem new information.
+     */
+    public void diff(String name, JmxElem<?> oldElem, JmxElem<?> newElem) {
+        JmxDiff.diff(oldElem, newElem, new JmxDiff.Listener() {
+
+            @Override
+            public void added(JmxPath path, JmxElem<?> elem) {
+                out.println("+ " + name + " " + path + ": " + format(elem));
+            }
+
+            @Override
+            public void removed(JmxPath path, JmxElem<?> elem) {
+                out.println("- " + name + " " + path + ": " + format(elem));
+            }
+
+            @Override
+            public void changed(JmxPath path, JmxElem<?> oldElem, JmxElem<?> newElem) {
+                StringBuilder buf = new StringBuilder();
+                buf.append("~ ").append(name).append(' ').append(path).append(": ")
+                    .append(format(oldElem)).append(" -> ").append(format(newElem));
+                appendDelta(buf, oldElem.getValue(), newElem.getValue());
+                out.println(buf);
+            }
+        });
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private static void appendDelta(StringBuilder buf, Object oldValue, Object newValue) {
+        if (isIntegral(oldValue) && isIntegral(newValue)) {
+            long delta = ((Number) newValue).longValue() - ((Number) oldValue).longValue();
+            buf.append(" (").append(delta >= 0 ? "+" : "").append(delta).append(')');
+        } else if ((oldValue instanceof Double || oldValue instanceof Float)
+            && (newValue instanceof Double || newValue instanceof Float)) {
+            double delta = ((Number) newValue).doubleValue() - ((Number) oldValue).doubleValue();
+            buf.append(" (").append(delta >= 0 ? "+" : "").append(delta).append(')');
+        }
+    }
+
+    private static String format(JmxElem<?> elem) {
+        if (elem.getElemType() == ElemType.ENTITY) {
+            return JsonUtils.encodeEntity(elem.getValue());
+        }
+        try {
+            StringWriter sw = new StringWriter();
+            JsonWriter writer = new JsonWriter(sw, false, true);
+            writer.write(null, elem);
+            writer.flush();
+            return sw.toString();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import javax.management.ObjectName;
+
+import static dev.vmix.jmxutils.CliHelper.*;
+
+import dev.vmix.jmxutils.models.JmxElemUtils;
+
+/**
+ * Run the same command against multiple targets concurrently.
+ * <p>
+ * Each target is connected and queried by its own thread, and is given up when it does not finish within the
+ * timeout. Results are printed in order of targets, and tagged by target.
+ * </p>
+ */
+public class FanOut {
+
+    /**
+     * Command executed for each target.
+     *
+     * @param <R> result type.
+     */
+    @FunctionalInterface
+    public interface Command<R> {
+
+        R execute(JmxClient client);
+    }
+
+    /**
+     * Consumer of result.
+     *
+     * @param <R> result type.
+     */
+    @FunctionalInterface
+    public interface ResultConsumer<R> {
+
+        void accept(Target target, R result, String error) throws IOException;
+    }
+
+    private static final int MAX_THREADS = 256;
+
+    private final PrintStream out;
+    private final List<Target> targets;
+    private final long timeoutMillis;
+    private final Function<String, JmxClient> clientFactory;
+
+    /**
+     * Constructor.
+     *
+     * @param out output.
+     * @param targets targets.
+     * @param timeoutMillis timeout per target in milliseconds.
+     * @param clientFactory factory of JMX client from connector address.
+     */
+    public FanOut(PrintStream out, List<Target> targets, long timeoutMillis,
+        Function<String, JmxClient> clientFactory) {
+        this.out = out;
+        this.targets = targets;
+        this.timeoutMillis = timeoutMillis;
+        this.clientFactory = clientFactory;
+    }
+
+    private static String errorMessage(Throwable t) {
+        if (t instanceof ExecutionException && t.getCause() != null) {
+            t = t.getCause();
+        }
+        if (t instanceof RuntimeException && t.getClass() == RuntimeException.class && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return String.format("[%s] %s", t.getClass().getCanonicalName(), t.getMessage());
+    }
+
+    private <R> R connectAndExecute(Target target, Command<R> command) throws IOException {
+        String addr = target.getAddress();
+        if (addr == null) {
+            throw new IllegalStateException("Cannot attach process: pid=" + target.getPid());
+        }
+        try (JmxClient client = clientFactory.apply(addr)) {
+            return command.execute(client);
+        }
+    }
+
+    /**
+     * Execute command against all targets, and pass results to the consumer in order of targets.
+     *
+     * @param <R> result type.
+     * @param command command.
+     * @param consumer consumer of result. (result is null if error is not null)
+     * @throws IOException I/O error in consumer.
+     */
+    public <R> void execute(Command<R> command, ResultConsumer<R> consumer) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(targets.size(), MAX_THREADS), r -> {
+            Thread thread = new Thread(r, "fan-out-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<R>> futures = new ArrayList<>(targets.size());
+            for (Target target : targets) {
+                futures.add(executor.submit(() -> connectAndExecute(target, command)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            for (int i = 0; i < targets.size(); i++) {
+                Future<R> future = futures.get(i);
+                R result = null;
+                String error = null;
+                try {
+                    result = future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    error = String.format("[%s] No response within %d ms", e.getClass().getCanonicalName(),
+                        timeoutMillis);
+                } catch (ExecutionException e) {
+                    error = errorMessage(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+                consumer.accept(targets.get(i), result, error);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * List MBean names of all targets. Each line is "TARGET&lt;TAB&gt;NAME".
+     *
+     * @param pattern object name pattern or regular expression. (null means all MBeans)
+     * @throws IOException I/O error.
+     * @see JmxClient#findMBeanNames(String)
+     */
+    public void list(String pattern) throws IOException {
+        execute(client -> client.findMBeanNames(pattern), (target, names, error) -> {
+            if (error != null) {
+                error(target + ": " + error);
+                return;
+            }
+            for (ObjectName name : names) {
+                out.println(target + "\t" + name);
+            }
+        });
+    }
+
+    /**
+     * Show MBean information of all targets as one JSON document keyed by target.
+     *
+     * @param objectNameStr object name.
+     * @param verbose verbose mode.
+     * @param compact compact mode.
+     * @param rowLimit the maximum number of rows written for each table.
+     * @throws IOException I/O error.
+     */
+    public void show(String objectNameStr, boolean verbose, boolean compact, int rowLimit) throws IOException {
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(out), verbose, compact, rowLimit);
+        writer.beginDocument();
+        execute(client -> client.getMBeanInfo(objectNameStr), (target, map, error) -> {
+            String label = target.toString();
+            if (error != null) {
+                writer.write(label, JmxElemUtils.wrap(label, error, null, null));
+            } else {
+                writer.write(label, map);
+            }
+            writer.flush();
+        });
+        writer.endDocument();
+    }
+}
@@ -2,23 +2,48 @@ package dev.vmix.jmxutils;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.rmi.UnmarshalException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import javax.management.Attribute;
+import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceNotFoundException;
 import javax.management.IntrospectionException;
-import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanException;
 import javax.management.MBeanInfo;
 import javax.management.MBeanServerConnection;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
 import javax.management.MalformedObjectNameException;
+import javax.management.NotificationBroadcaster;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
 import javax.management.ObjectInstance;
 import javax.management.ObjectName;
 import javax.management.ReflectionException;
 import javax.management.RuntimeMBeanException;
+import javax.management.relation.MBeanServerNotificationFilter;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
@@ -31,8 +56,35 @@ import dev.vmix.jmxutils.models.JmxMap;
  */
 public class JmxClient implements Closeable {
 
+    /**
+     * Consumer of attribute value.
+     */
+    @FunctionalInterface
+    public interface AttributeConsumer {
+
+        void accept(String attrName, Object attrValue) throws IOException;
+    }
+
+    private static final String RMI_SOCKET_FACTORY = "com.sun.jndi.rmi.factory.socket";
+
+    // Calls stuck in blocking socket I/O cannot be interrupted, so the number of their threads is bounded.
+    private static final int MAX_CALL_THREADS = 16;
+
+    // Marker of the connect slot which the caller gave up.
+    private static final Object ABANDONED = new Object();
+
+    // Regular expression constructs which never appear in ObjectName patterns.
+    private static final Pattern REGEX_CONSTRUCT = Pattern.compile("\\.[*+?]|[\\^$+|()\\[\\]{}\\\\]");
+
+    private final ExecutorService executor;
     private final JMXConnector connector;
     private final MBeanServerConnection connection;
+    private final AtomicLong savedRoundTrips = new AtomicLong();
+    private volatile boolean connectionFailed = false;
+    private final Object metadataCacheLock = new Object();
+    private Map<ObjectName, MBeanMetadata> metadataCache = null;
+    // incremented by each invalidation. (guarded by metadataCacheLock)
+    private long metadataGeneration = 0;
 
     public static String getConnectorAddress(String host, int port) {
         return String.format("service:jmx:rmi:///jndi/rmi://%s:%d/jmxrmi", host, port);
@@ -48,12 +100,181 @@ public class JmxClient implements Closeable {
      * @param addr JMX connector address.
      */
     public JmxClient(String addr) {
+        this(addr, 0, 0);
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * If connecting or a call to the JMX agent does not finish within the timeout, {@link JmxTimeoutException} is
+     * thrown.
+     * </p>
+     *
+     * @param addr JMX connector address.
+     * @param connectTimeoutMillis connect timeout in milliseconds. (0 means no timeout)
+     * @param callTimeoutMillis timeout of each call in milliseconds. (0 means no timeout)
+     */
+    public JmxClient(String addr, long connectTimeoutMillis, long callTimeoutMillis) {
         try {
             JMXServiceURL target = new JMXServiceURL(addr);
-            connector = JMXConnectorFactory.connect(target);
-            connection = connector.getMBeanServerConnection();
+            if (connectTimeoutMillis > 0 || callTimeoutMillis > 0) {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_CALL_THREADS, MAX_CALL_THREADS, 60L,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "jmx-client-call");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                pool.allowCoreThreadTimeOut(true);
+                executor = pool;
+            } else {
+                executor = null;
+            }
+            if (connectTimeoutMillis > 0) {
+                connector = connect(target, connectTimeoutMillis);
+            } else {
+                connector = JMXConnectorFactory.connect(target);
+            }
+            MBeanServerConnection conn = connector.getMBeanServerConnection();
+            if (callTimeoutMillis > 0) {
+                conn = withTimeout(conn, callTimeoutMillis);
+            }
+            connection = withFailureTracking(conn);
         } catch (IOException e) {
+            shutdownExecutor();
             throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            shutdownExecutor();
+            throw e;
+        }
+    }
+
+    private JMXConnector connect(JMXServiceURL target, long connectTimeoutMillis) throws IOException {
+        Map<String, Object> env = new HashMap<>();
+        // Only the registry lookup uses this factory. Calls are bounded by withTimeout instead.
+        int timeoutMillis = (int) Math.min(connectTimeoutMillis, Integer.MAX_VALUE);
+        env.put(RMI_SOCKET_FACTORY, new TimeoutSocketFactory(timeoutMillis, timeoutMillis));
+        // Holds the connector, or ABANDONED if the caller gave up. Whichever comes second closes the connector.
+        AtomicReference<Object> slot = new AtomicReference<>();
+        Future<JMXConnector> future = executor.submit(() -> {
+            JMXConnector c = JMXConnectorFactory.connect(target, env);
+            if (!slot.compareAndSet(null, c)) {
+                // Connected after timeout.
+                c.close();
+            }
+            return c;
+        });
+        try {
+            return future.get(connectTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(slot, future);
+            throw new JmxTimeoutException(
+                String.format("Cannot connect to %s within %d ms", target, connectTimeoutMillis));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        } catch (InterruptedException e) {
+            abandon(slot, future);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void abandon(AtomicReference<Object> slot, Future<JMXConnector> future) {
+        future.cancel(true);
+        Object c = slot.getAndSet(ABANDONED);
+        if (c instanceof JMXConnector) {
+            // Connected between the timeout and here.
+            try {
+                ((JMXConnector) c).close();
+            } catch (IOException e) {
+                // ignore.
+            }
+        }
+    }
+
+    /**
+     * Wrap connection to call each method in another thread with timeout.
+     * <p>
+     * A timed out call may stay blocked in socket I/O, which cannot be interrupted. It keeps one of
+     * {@link #MAX_CALL_THREADS} threads until the socket fails, and further calls wait in the queue within their own
+     * timeouts.
+     * </p>
+     */
+    private MBeanServerConnection withTimeout(MBeanServerConnection conn, long callTimeoutMillis) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(conn, args);
+            }
+            Future<Object> future = executor.submit(() -> {
+                try {
+                    return method.invoke(conn, args);
+                } catch (InvocationTargetException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) {
+                        throw (Exception) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw e;
+                }
+            });
+            try {
+                return future.get(callTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                throw new JmxTimeoutException(
+                    String.format("No response to %s within %d ms", method.getName(), callTimeoutMillis));
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        };
+        return (MBeanServerConnection) Proxy.newProxyInstance(MBeanServerConnection.class.getClassLoader(),
+            new Class<?>[] { MBeanServerConnection.class }, handler);
+    }
+
+    /**
+     * Wrap connection to record communication errors and timeouts of calls.
+     */
+    private MBeanServerConnection withFailureTracking(MBeanServerConnection conn) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return method.invoke(conn, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException || cause instanceof JmxTimeoutException) {
+                    connectionFailed = true;
+                }
+                throw cause;
+            }
+        };
+        return (MBeanServerConnection) Proxy.newProxyInstance(MBeanServerConnection.class.getClassLoader(),
+            new Class<?>[] { MBeanServerConnection.class }, handler);
+    }
+
+    /**
+     * Check whether a call to the JMX agent has failed by a communication error or timeout.
+     * <p>
+     * Errors of callers, such as I/O errors of the output written by {@link AttributeSink}, are not counted.
+     * </p>
+     *
+     * @return true if the connection is no longer reliable.
+     */
+    public boolean isConnectionFailed() {
+        return connectionFailed;
+    }
+
+    private void shutdownExecutor() {
+        if (executor != null) {
+            executor.shutdownNow();
         }
     }
 
@@ -72,6 +293,174 @@ public class JmxClient implements Closeable {
         }
     }
 
+    /**
+     * Get list of MBean names.
+     * <p>
+     * Only names are transferred, and the pattern is evaluated on the server side.
+     * </p>
+     *
+     * @param pattern object name pattern. (null means all MBeans)
+     * @return sorted list of MBean names.
+     */
+    public List<ObjectName> getMBeanNames(ObjectName pattern) {
+        try {
+            Set<ObjectName> names = connection.queryNames(pattern, null);
+            List<ObjectName> list = new ArrayList<>(names);
+            list.sort(null);
+            return list;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Parse the pattern as an ObjectName pattern.
+     * <p>
+     * The pattern is regarded as an ObjectName pattern only if it is a valid ObjectName pattern such as
+     * "java.lang:type=*", and does not contain regular expression constructs such as ".*" or "[...]". So a regular
+     * expression such as "java.lang:type=.*" or "java.lang:type=Mem" is never evaluated as an ObjectName.
+     * </p>
+     *
+     * @param pattern object name pattern or regular expression.
+     * @return ObjectName pattern, or null if the pattern should be treated as a regular expression.
+     */
+    static ObjectName parseObjectNamePattern(String pattern) {
+        if (pattern.indexOf(':') < 0 || REGEX_CONSTRUCT.matcher(pattern).find()) {
+            return null;
+        }
+        try {
+            ObjectName objectName = new ObjectName(pattern);
+            return objectName.isPattern() ? objectName : null;
+        } catch (MalformedObjectNameException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Make matcher of MBean names in the same way as {@link #findMBeanNames(String)}.
+     *
+     * @param pattern object name pattern or regular expression. (null means all MBeans)
+     * @return matcher of MBean names.
+     */
+    public static Predicate<ObjectName> newNameMatcher(String pattern) {
+        if (pattern == null) {
+            return name -> true;
+        }
+        ObjectName objectName = parseObjectNamePattern(pattern);
+        if (objectName != null) {
+            return objectName::apply;
+        }
+        Pattern regex = Pattern.compile(pattern);
+        return name -> regex.matcher(name.getCanonicalName()).find();
+    }
+
+    /**
+     * Find MBean names matching the pattern.
+     * <p>
+     * If the pattern is an ObjectName pattern such as "java.lang:type=*", it is evaluated on the server side.
+     * Otherwise it is treated as a regular expression and matched against canonical names.
+     * (see {@link #parseObjectNamePattern(String)})
+     * </p>
+     *
+     * @param pattern object name pattern or regular expression. (null means all MBeans)
+     * @return sorted list of MBean names.
+     */
+    public List<ObjectName> findMBeanNames(String pattern) {
+        ObjectName objectName = pattern != null ? parseObjectNamePattern(pattern) : null;
+        if (objectName != null) {
+            return getMBeanNames(objectName);
+        }
+        List<ObjectName> names = getMBeanNames(null);
+        if (pattern != null) {
+            names.removeIf(newNameMatcher(pattern).negate());
+        }
+        return names;
+    }
+
+    /**
+     * Enable MBean metadata cache.
+     * <p>
+     * MBeanInfo and values derived from it are cached per object name, and evicted in LRU order when the number of
+     * entries exceeds maxSize. An entry is invalidated when the MBean is registered or unregistered.
+     * </p>
+     * <p>
+     * This is useful for callers which read the same MBeans repeatedly. It costs an extra round trip for registering
+     * the notification listener.
+     * </p>
+     *
+     * @param maxSize maximum number of cached entries.
+     */
+    public void enableMetadataCache(int maxSize) {
+        synchronized (metadataCacheLock) {
+            if (metadataCache != null) {
+                return;
+            }
+            NotificationListener invalidator = (notification, handback) -> {
+                if (notification instanceof MBeanServerNotification) {
+                    ObjectName name = ((MBeanServerNotification) notification).getMBeanName();
+                    synchronized (metadataCacheLock) {
+                        if (metadataCache != null) {
+                            metadataCache.remove(name);
+                            metadataGeneration++;
+                        }
+                    }
+                }
+            };
+            MBeanServerNotificationFilter filter = new MBeanServerNotificationFilter();
+            filter.enableAllObjectNames();
+            try {
+                connection.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, invalidator, filter, null);
+            } catch (InstanceNotFoundException | IOException e) {
+                throw new RuntimeException(e);
+            }
+            metadataCache = new LinkedHashMap<ObjectName, MBeanMetadata>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ObjectName, MBeanMetadata> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+    }
+
+    MBeanMetadata getMetadata(ObjectName objectName) {
+        long generation;
+        synchronized (metadataCacheLock) {
+            if (metadataCache != null) {
+                MBeanMetadata metadata = metadataCache.get(objectName);
+                if (metadata != null) {
+                    return metadata;
+                }
+            }
+            generation = metadataGeneration;
+        }
+        MBeanMetadata metadata;
+        try {
+            metadata = new MBeanMetadata(connection.getMBeanInfo(objectName));
+        } catch (InstanceNotFoundException | IntrospectionException | ReflectionException | IOException e) {
+            throw new RuntimeException(e);
+        }
+        synchronized (metadataCacheLock) {
+            // Not cached if an invalidation arrived during the fetch, because the metadata may be stale.
+            if (metadataCache != null && metadataGeneration == generation) {
+                metadataCache.put(objectName, metadata);
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Get MBean metadata.
+     *
+     * @param objectName object name.
+     * @return MBean metadata.
+     */
+    public MBeanInfo getMBeanMetadata(ObjectName objectName) {
+        return getMetadata(objectName).info;
+    }
+
     /**
      * Get MBean information.
      *
@@ -80,38 +469,210 @@ public class JmxClient implements Closeable {
      */
     public JmxMap getMBeanInfo(String objectNameStr) {
         try {
-            ObjectName objectName = new ObjectName(objectNameStr);
-            MBeanInfo info = connection.getMBeanInfo(objectName);
-            JmxMap map = JmxElemUtils.newEmptyMap(null, info.getClassName(), info.getDescription());
-            MBeanAttributeInfo[] attrInfos = info.getAttributes();
-            for (MBeanAttributeInfo attrInfo : attrInfos) {
-                if (!attrInfo.isReadable()) {
-                    continue;
+            return getMBeanInfo(new ObjectName(objectNameStr));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Get MBean information.
+     * <p>
+     * This method can be called from multiple threads concurrently.
+     * </p>
+     *
+     * @param objectName object name.
+     * @return MBean information. (named by canonical object name)
+     */
+    public JmxMap getMBeanInfo(ObjectName objectName) {
+        JmxMap[] map = { null };
+        try {
+            streamMBeanInfo(objectName, new AttributeSink() {
+
+                @Override
+                public void beginMBean(ObjectName name, String className, String description) {
+                    map[0] = JmxElemUtils.newEmptyMap(name.getCanonicalName(), className, description);
+                }
+
+                @Override
+                public void attribute(String name, Object value, String typeName, String description) {
+                    map[0].put(name, value, typeName, description);
                 }
-                String attrName = attrInfo.getName();
-                Object attrValue;
-                String attrType = attrInfo.getType();
-                String attrDesc = attrInfo.getDescription();
-                if (attrDesc != null && (attrDesc.equals(attrName) || attrDesc.equals(attrType))) {
-                    attrDesc = null;
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return map[0];
+    }
+
+    /**
+     * Push MBean information to the sink attribute by attribute.
+     * <p>
+     * Unlike {@link #getMBeanInfo(ObjectName)}, no tree is built, and attributes are passed to the sink one by one.
+     * The raw values are fetched by one getAttributes call, so they are all received before the first one is
+     * passed, and only the wrapped elements can be released one by one. This method can be called from multiple
+     * threads concurrently.
+     * </p>
+     *
+     * @param objectName object name.
+     * @param sink receiver of attributes.
+     * @throws IOException communication error, or I/O error in the sink.
+     */
+    public void streamMBeanInfo(ObjectName objectName, AttributeSink sink) throws IOException {
+        streamMBeanInfo(objectName, null, sink);
+    }
+
+    /**
+     * Push MBean information of the selected attributes to the sink attribute by attribute.
+     * <p>
+     * Only the selected attributes are requested by one getAttributes call.
+     * </p>
+     *
+     * @param objectName object name.
+     * @param attrNames selected attribute names. (null means all readable attributes)
+     * @param sink receiver of attributes.
+     * @throws IOException communication error, or I/O error in the sink.
+     * @throws IllegalArgumentException attribute is not readable.
+     */
+    public void streamMBeanInfo(ObjectName objectName, List<String> attrNames, AttributeSink sink)
+        throws IOException {
+        try {
+            MBeanMetadata metadata = getMetadata(objectName);
+            MBeanInfo info = metadata.info;
+            if (attrNames == null) {
+                attrNames = metadata.readableAttrNames;
+            } else {
+                for (String attrName : attrNames) {
+                    if (!metadata.attrTypes.containsKey(attrName)) {
+                        throw new IllegalArgumentException("No readable attribute: " + attrName + " in " + objectName);
+                    }
                 }
+            }
+            sink.beginMBean(objectName, info.getClassName(), info.getDescription());
+            getAttributeValues(objectName, attrNames, (attrName, attrValue) -> sink.attribute(
+                attrName, attrValue, metadata.attrTypes.get(attrName), metadata.attrDescs.get(attrName)));
+            sink.endMBean();
+        } catch (InstanceNotFoundException | ReflectionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Get attribute values of MBean.
+     * <p>
+     * All attributes are requested by one getAttributes call, and only attributes missing in its result are read
+     * one by one. A failed read is stored as "[ExceptionClass] message" string.
+     * </p>
+     *
+     * @param objectName object name.
+     * @param attrNames attribute names.
+     * @return map of attribute name and value. (in order of attrNames)
+     * @throws InstanceNotFoundException MBean is not found.
+     * @throws ReflectionException reflection error.
+     * @throws IOException communication error.
+     */
+    public Map<String, Object> getAttributeValues(ObjectName objectName, List<String> attrNames)
+            throws InstanceNotFoundException, ReflectionException, IOException {
+        Map<String, Object> attrValues = new LinkedHashMap<>();
+        getAttributeValues(objectName, attrNames, attrValues::put);
+        return attrValues;
+    }
+
+    /**
+     * Get attribute values of MBean, and pass them to the consumer in order of attrNames.
+     * <p>
+     * The values are fetched by one getAttributes call as {@link #getAttributeValues(ObjectName, List)}, so they are
+     * all received before the first one is passed. The client does not retain a value after passing it.
+     * </p>
+     *
+     * @param objectName object name.
+     * @param attrNames attribute names.
+     * @param consumer consumer of attribute name and value.
+     * @throws InstanceNotFoundException MBean is not found.
+     * @throws ReflectionException reflection error.
+     * @throws IOException communication error, or I/O error in the consumer.
+     * @see #getAttributeValues(ObjectName, List)
+     */
+    public void getAttributeValues(ObjectName objectName, List<String> attrNames, AttributeConsumer consumer)
+            throws InstanceNotFoundException, ReflectionException, IOException {
+        if (attrNames.isEmpty()) {
+            return;
+        }
+        Map<String, Object> fetched = new HashMap<>();
+        try {
+            AttributeList attrList = connection.getAttributes(objectName, attrNames.toArray(new String[0]));
+            for (Attribute attr : attrList.asList()) {
+                fetched.put(attr.getName(), attr.getValue());
+            }
+        } catch (UnmarshalException | RuntimeMBeanException e) {
+            // A value of some attribute cannot be transferred. Read all attributes one by one.
+        }
+        int roundTrips = 1;
+        for (String attrName : attrNames) {
+            Object attrValue;
+            if (fetched.containsKey(attrName)) {
+                attrValue = fetched.remove(attrName);
+            } else {
+                ++roundTrips;
                 try {
                     attrValue = connection.getAttribute(objectName, attrName);
                 } catch (AttributeNotFoundException | MBeanException | UnmarshalException | RuntimeMBeanException e) {
                     attrValue = String.format("[%s] %s", e.getClass().getCanonicalName(), e.getMessage());
                 }
-                map.put(attrName, attrValue, attrType, attrDesc);
             }
-            return map;
-        } catch (MalformedObjectNameException e) {
-            throw new IllegalArgumentException(e);
-        } catch (InstanceNotFoundException | IntrospectionException | ReflectionException | IOException e) {
-            throw new RuntimeException(e);
+            consumer.accept(attrName, attrValue);
         }
+        savedRoundTrips.addAndGet(attrNames.size() - roundTrips);
+    }
+
+    /**
+     * Add notification listener to MBean.
+     *
+     * @param objectName object name.
+     * @param listener listener.
+     * @param filter filter. (null means all notifications)
+     * @param handback handback object passed to the listener.
+     * @return true if added, or false if the MBean is not found or not a notification broadcaster.
+     * @throws IOException I/O error.
+     */
+    public boolean addNotificationListener(ObjectName objectName, NotificationListener listener,
+        NotificationFilter filter, Object handback) throws IOException {
+        try {
+            if (!connection.isInstanceOf(objectName, NotificationBroadcaster.class.getName())) {
+                return false;
+            }
+            connection.addNotificationListener(objectName, listener, filter, handback);
+            return true;
+        } catch (InstanceNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Add listener of connection notifications such as closed or lost notifications.
+     *
+     * @param listener listener.
+     * @see javax.management.remote.JMXConnectionNotification
+     */
+    public void addConnectionNotificationListener(NotificationListener listener) {
+        connector.addConnectionNotificationListener(listener, null, null);
+    }
+
+    /**
+     * Get the number of round trips saved by batched attribute reads.
+     *
+     * @return the number of saved round trips. (negative if batched reads cost extra round trips)
+     */
+    public long getSavedRoundTrips() {
+        return savedRoundTrips.get();
     }
 
     @Override
     public void close() throws IOException {
-        connector.close();
+        try {
+            connector.close();
+        } finally {
+            shutdownExecutor();
+        }
     }
 }
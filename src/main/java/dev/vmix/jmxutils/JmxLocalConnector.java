@@ -6,20 +6,96 @@ import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.sun.tools.attach.AgentInitializationException;
-import com.sun.tools.attach.AgentLoadException;
 import com.sun.tools.attach.AttachNotSupportedException;
 import com.sun.tools.attach.VirtualMachine;
+import com.sun.tools.attach.VirtualMachineDescriptor;
 
 public class JmxLocalConnector {
 
     private static final String VIRTUAL_MACHINE_CLASS = "com.sun.tools.attach.VirtualMachine";
     private static final String LOCAL_CONNECTOR_ADDRESS = "com.sun.management.jmxremote.localConnectorAddress";
 
+    /**
+     * Cached connector addresses per PID.
+     * <p>
+     * An entry is valid only while the start time of the process is unchanged, so a reused PID is never
+     * confused with the former process.
+     * </p>
+     */
+    private static final Map<String, CachedAddress> ADDRESS_CACHE = new ConcurrentHashMap<>();
+
+    private static final class CachedAddress {
+
+        private final String startTime;
+        private final String address;
+
+        private CachedAddress(String startTime, String address) {
+            this.startTime = startTime;
+            this.address = address;
+        }
+    }
+
+    /**
+     * Attachable local JVM.
+     */
+    public static final class LocalJvm {
+
+        private final String pid;
+        private final String displayName;
+        private final String address;
+
+        private LocalJvm(String pid, String displayName, String address) {
+            this.pid = pid;
+            this.displayName = displayName;
+            this.address = address;
+        }
+
+        public String getPid() {
+            return pid;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * Get JMX connector address.
+         *
+         * @return JMX connector address. (null if the local management agent is not started)
+         */
+        public String getAddress() {
+            return address;
+        }
+    }
+
+    /**
+     * Holder of availability of Attach API. Tools classpath is set up only once on the first use.
+     */
+    private static final class AttachApi {
+
+        private static final boolean AVAILABLE = init();
+
+        private static boolean init() {
+            addToolsClassPath();
+            try {
+                Class.forName(VIRTUAL_MACHINE_CLASS);
+                return true;
+            } catch (ClassNotFoundException e) {
+                // Cannot load VirtualMachine class.
+                return false;
+            }
+        }
+    }
+
     public static String getLocalConnectorAddress(int pid) {
         return getLocalConnectorAddress(Integer.toString(pid));
     }
@@ -47,15 +123,73 @@ public class JmxLocalConnector {
         }
     }
 
-    public static String getLocalConnectorAddress(String pidStr) {
-        addToolsClassPath();
+    /**
+     * Get start time of process.
+     *
+     * @param pidStr PID.
+     * @return start time. (null if it is not available on this platform)
+     */
+    private static String getStartTime(String pidStr) {
+        Path statPath = Paths.get("/proc", pidStr, "stat");
         try {
-            Class.forName(VIRTUAL_MACHINE_CLASS);
-        } catch (ClassNotFoundException e) {
-            // Cannot load VirtualMachine class.
+            String stat = new String(Files.readAllBytes(statPath), StandardCharsets.US_ASCII);
+            // The 2nd field (comm) may contain spaces, so the fields are counted after its closing parenthesis.
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            // starttime is the 22nd field, and fields[0] is the 3rd field.
+            return fields.length > 19 ? fields[19] : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public static String getLocalConnectorAddress(String pidStr) {
+        if (!AttachApi.AVAILABLE) {
             return null;
         }
-        return new VMWrapper(pidStr).getLocalConnectorAddress();
+        String startTime = getStartTime(pidStr);
+        if (startTime != null) {
+            CachedAddress cached = ADDRESS_CACHE.get(pidStr);
+            if (cached != null && cached.startTime.equals(startTime)) {
+                return cached.address;
+            }
+        }
+        String addr = new VMWrapper(pidStr).getLocalConnectorAddress(true);
+        if (startTime != null && addr != null) {
+            ADDRESS_CACHE.put(pidStr, new CachedAddress(startTime, addr));
+        }
+        return addr;
+    }
+
+    /**
+     * List attachable local JVMs with their JMX connector addresses.
+     * <p>
+     * The local management agent is not started by this method, so the address of a JVM is null unless its agent
+     * is already started.
+     * </p>
+     *
+     * @return list of local JVM. (empty if Attach API is not available)
+     */
+    public static List<LocalJvm> listLocalJvms() {
+        List<LocalJvm> jvms = new ArrayList<>();
+        if (!AttachApi.AVAILABLE) {
+            return jvms;
+        }
+        for (VirtualMachineDescriptor vmd : VirtualMachine.list()) {
+            String pidStr = vmd.id();
+            String addr;
+            try {
+                addr = new VMWrapper(pidStr).getLocalConnectorAddress(false);
+            } catch (RuntimeException e) {
+                // Cannot attach.
+                addr = null;
+            }
+            String startTime = getStartTime(pidStr);
+            if (startTime != null && addr != null) {
+                ADDRESS_CACHE.put(pidStr, new CachedAddress(startTime, addr));
+            }
+            jvms.add(new LocalJvm(pidStr, vmd.displayName(), addr));
+        }
+        return jvms;
     }
 
     private static class VMWrapper {
@@ -70,20 +204,21 @@ public class JmxLocalConnector {
             }
         }
 
-        private String getLocalConnectorAddress() {
+        private String getLocalConnectorAddress(boolean startAgent) {
             try {
                 String addr = vm.getAgentProperties().getProperty(LOCAL_CONNECTOR_ADDRESS);
-                if (addr == null) {
-                    String javaHome = System.getProperty("java.home");
-                    Path agentPath = Paths.get(javaHome, "lib/management-agent.jar");
-                    if (Files.exists(agentPath)) {
-                        vm.loadAgent(agentPath.toString());
-                    }
-                    addr = vm.getAgentProperties().getProperty(LOCAL_CONNECTOR_ADDRESS);
+                if (addr == null && startAgent) {
+                    addr = vm.startLocalManagementAgent();
                 }
                 return addr;
-            } catch (IOException | AgentLoadException | AgentInitializationException e) {
+            } catch (IOException e) {
                 return null;
+            } finally {
+                try {
+                    vm.detach();
+                } catch (IOException e) {
+                    // Ignored.
+                }
             }
         }
     }
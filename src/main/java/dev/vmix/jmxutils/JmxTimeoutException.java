@@ -0,0 +1,21 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+/**
+ * Thrown when connecting to JMX agent or calling it does not finish in time.
+ */
+public class JmxTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     *
+     * @param message message.
+     */
+    public JmxTimeoutException(String message) {
+        super(message);
+    }
+}
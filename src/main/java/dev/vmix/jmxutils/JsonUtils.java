@@ -5,6 +5,8 @@ package dev.vmix.jmxutils;
 
 public final class JsonUtils {
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private JsonUtils() {
     }
 
@@ -21,6 +23,7 @@ public final class JsonUtils {
      * <li>'\n'
      * <li>'\r'
      * <li>'\t'
+     * <li>other C0 control characters (U+0000 - U+001F)
      * <li>U+0085 (NEL: Next Line)
      * <li>U+2028 (LS: Line Separator)
      * <li>U+2029 (PS: Paragraph Separator)
@@ -30,19 +33,51 @@ public final class JsonUtils {
      * @return escaped value.
      */
     static String encodeEntity(Object value) {
+        return encodeEntity(value, new StringBuilder()).toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        if (c < 0x80) {
+            return c < 0x20 || c == '"' || c == '\\';
+        }
+        return c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Encode entity to JSON element, and append it to the buffer.
+     * <p>
+     * See {@link #encodeEntity(Object)} for escaped characters. Runs of characters which are not escaped are copied
+     * in bulk.
+     * </p>
+     *
+     * @param value source.
+     * @param buf output buffer.
+     * @return buf.
+     */
+    static StringBuilder encodeEntity(Object value, StringBuilder buf) {
         if (value == null) {
-            return "null";
+            return buf.append("null");
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+            || value instanceof Byte) {
+            return buf.append(((Number) value).longValue());
         } else if (value instanceof Boolean || value instanceof Number) {
-            return value.toString();
+            return buf.append(value.toString());
         }
         String str = value.toString();
-        StringBuilder buf = new StringBuilder(str.length() + 16);
+        int len = str.length();
         buf.append('"');
-        value.toString().chars().forEach(c -> {
+        int start = 0;
+        for (int i = 0; i < len; i++) {
+            char c = str.charAt(i);
+            if (!needsEscape(c)) {
+                continue;
+            }
+            buf.append(str, start, i);
+            start = i + 1;
             switch (c) {
             case '\\':
             case '"':
-                buf.append('\\').append((char) c);
+                buf.append('\\').append(c);
                 break;
             case '\b':
                 buf.append("\\b");
@@ -59,17 +94,16 @@ public final class JsonUtils {
             case '\t':
                 buf.append("\\t");
                 break;
-            case '\u0085': // NEL: Next Line
-            case '\u2028': // LS: Line Separator
-            case '\u2029': // PS: Paragraph Separator
-                buf.append(String.format("\\u%04x", c));
-                break;
-            default:
-                buf.append((char) c);
+            default: // other C0 controls, NEL, LS and PS.
+                buf.append("\\u")
+                    .append(HEX_DIGITS[(c >> 12) & 0xf])
+                    .append(HEX_DIGITS[(c >> 8) & 0xf])
+                    .append(HEX_DIGITS[(c >> 4) & 0xf])
+                    .append(HEX_DIGITS[c & 0xf]);
                 break;
             }
-        });
-        buf.append('"');
-        return buf.toString();
+        }
+        buf.append(str, start, len);
+        return buf.append('"');
     }
 }
@@ -0,0 +1,286 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import dev.vmix.jmxutils.models.JmxCursor;
+import dev.vmix.jmxutils.models.JmxElem;
+import dev.vmix.jmxutils.models.JmxElem.ElemType;
+import dev.vmix.jmxutils.models.JmxPrimitiveList;
+import dev.vmix.jmxutils.models.JmxTable;
+
+/**
+ * Streaming JSON writer for JMX elements.
+ * <p>
+ * Each element is written out as soon as it is passed, and separators are written lazily, so the writer does not
+ * need to know whether an element is the last one in its container.
+ * </p>
+ * <p>
+ * In verbose mode, each element is written as [TYPE, VALUE] or [TYPE, VALUE, DESCRIPTION]. In compact mode, no
+ * line breaks and indents are written. Tables are written up to the row limit. (see {@link JmxTable#limitRows(int)})
+ * </p>
+ */
+public class JsonWriter implements Flushable {
+
+    private static final String NEWLINE = System.lineSeparator();
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    private final Writer out;
+    private final boolean verbose;
+    private final boolean compact;
+    private final int rowLimit;
+    private final StringBuilder buf = new StringBuilder(FLUSH_THRESHOLD + 256);
+    private final char[] chars = new char[FLUSH_THRESHOLD + 256];
+    private String[] indents = { "" };
+    private int[] counts = new int[8];
+    private int depth = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param out output.
+     * @param verbose write type names and descriptions.
+     * @param compact write no line breaks and indents.
+     */
+    public JsonWriter(Writer out, boolean verbose, boolean compact) {
+        this(out, verbose, compact, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param out output.
+     * @param verbose write type names and descriptions.
+     * @param compact write no line breaks and indents.
+     * @param rowLimit the maximum number of rows written for each table. (Integer.MAX_VALUE means unlimited)
+     */
+    public JsonWriter(Writer out, boolean verbose, boolean compact, int rowLimit) {
+        this.out = out;
+        this.verbose = verbose;
+        this.compact = compact;
+        this.rowLimit = rowLimit;
+    }
+
+    private String indent(int level) {
+        if (level >= indents.length) {
+            String[] newIndents = Arrays.copyOf(indents, level * 2);
+            for (int i = indents.length; i < newIndents.length; i++) {
+                newIndents[i] = newIndents[i - 1] + "  ";
+            }
+            indents = newIndents;
+        }
+        return indents[level];
+    }
+
+    private void newline(int level) {
+        if (!compact) {
+            buf.append(NEWLINE).append(indent(level));
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        int len = buf.length();
+        int offset = 0;
+        while (offset < len) {
+            int end = Math.min(offset + chars.length, len);
+            buf.getChars(offset, end, chars, 0);
+            out.write(chars, 0, end - offset);
+            offset = end;
+        }
+        buf.setLength(0);
+    }
+
+    private void flushIfNeeded() throws IOException {
+        if (buf.length() >= FLUSH_THRESHOLD) {
+            flushBuffer();
+        }
+    }
+
+    private void beginElem(String name, String typeName) {
+        if (counts[depth]++ > 0) {
+            buf.append(',');
+        }
+        newline(depth);
+        if (name != null) {
+            JsonUtils.encodeEntity(name, buf).append(compact ? ":" : ": ");
+        }
+        if (verbose) {
+            JsonUtils.encodeEntity(typeName, buf.append('[')).append(", ");
+        }
+    }
+
+    private void endElem(String description) {
+        if (verbose) {
+            if (description != null) {
+                JsonUtils.encodeEntity(description, buf.append(", "));
+            }
+            buf.append(']');
+        }
+    }
+
+    private void open(char bracket) {
+        buf.append(bracket);
+        if (++depth >= counts.length) {
+            counts = Arrays.copyOf(counts, counts.length * 2);
+        }
+        counts[depth] = 0;
+    }
+
+    private void close(char bracket) {
+        if (depth <= 0) {
+            throw new IllegalStateException("No open container.");
+        }
+        --depth;
+        newline(depth);
+        buf.append(bracket);
+    }
+
+    /**
+     * Begin JSON document. (write "{")
+     *
+     * @throws IOException I/O error.
+     */
+    public void beginDocument() throws IOException {
+        if (depth != 0) {
+            throw new IllegalStateException("Document is already begun.");
+        }
+        counts[0] = 0;
+        open('{');
+        flushIfNeeded();
+    }
+
+    /**
+     * End JSON document. (write "}" and a line break, and flush)
+     *
+     * @throws IOException I/O error.
+     */
+    public void endDocument() throws IOException {
+        close('}');
+        if (depth != 0) {
+            throw new IllegalStateException("Unclosed container remains.");
+        }
+        buf.append(NEWLINE);
+        flush();
+    }
+
+    /**
+     * Write entity.
+     *
+     * @param name name. (null if the current container is an array)
+     * @param value value.
+     * @param typeName type name.
+     * @param description description.
+     * @throws IOException I/O error.
+     */
+    public void writeEntity(String name, Object value, String typeName, String description) throws IOException {
+        beginElem(name, typeName);
+        JsonUtils.encodeEntity(value, buf);
+        endElem(description);
+        flushIfNeeded();
+    }
+
+    /**
+     * Begin list or map.
+     *
+     * @return true if the items are already written.
+     */
+    private boolean beginContainer(String name, JmxElem<?> elem) throws IOException {
+        beginElem(name, elem.getValueTypeName());
+        if (elem.getElemType() == ElemType.MAP) {
+            open('{');
+            return false;
+        }
+        open('[');
+        if (!verbose && elem instanceof JmxPrimitiveList
+            && ((JmxPrimitiveList) elem).getComponentType() != char.class) {
+            writePrimitiveItems((JmxPrimitiveList) elem);
+            return true;
+        }
+        return false;
+    }
+
+    private void endContainer(JmxElem<?> elem) throws IOException {
+        close(elem.getElemType() == ElemType.MAP ? '}' : ']');
+        endElem(elem.getDescription());
+        flushIfNeeded();
+    }
+
+    /**
+     * Write element.
+     *
+     * @param name name. (null if the current container is an array)
+     * @param elem element.
+     * @throws IOException I/O error.
+     */
+    public void write(String name, JmxElem<?> elem) throws IOException {
+        if (elem.getElemType() == ElemType.ENTITY) {
+            writeEntity(name, elem.getValue(), elem.getValueTypeName(), elem.getDescription());
+            return;
+        }
+        if (elem instanceof JmxTable) {
+            elem = ((JmxTable) elem).limitRows(rowLimit);
+        }
+        if (!beginContainer(name, elem)) {
+            writeContents(elem);
+        }
+        endContainer(elem);
+    }
+
+    /**
+     * Write numeric or boolean items without creating elements.
+     */
+    private void writePrimitiveItems(JmxPrimitiveList list) throws IOException {
+        int size = list.size();
+        for (int index = 0; index < size; index++) {
+            beginElem(null, null);
+            list.appendElement(index, buf);
+            flushIfNeeded();
+        }
+    }
+
+    /**
+     * Write child elements of the container into the current container.
+     * <p>
+     * The descendants are traversed by {@link JmxCursor}, so the depth of the tree does not consume the call stack.
+     * </p>
+     *
+     * @param container list or map element.
+     * @throws IOException I/O error.
+     */
+    public void writeContents(JmxElem<?> container) throws IOException {
+        JmxCursor cursor = new JmxCursor(container);
+        while (cursor.next()) {
+            JmxElem<?> elem = cursor.getElem();
+            String name = cursor.getParentElemType() == ElemType.MAP ? elem.getName() : null;
+            switch (cursor.getEvent()) {
+            case ENTITY:
+                writeEntity(name, elem.getValue(), elem.getValueTypeName(), elem.getDescription());
+                break;
+            case ENTER:
+                if (elem instanceof JmxTable && ((JmxTable) elem).limitRows(rowLimit) != elem) {
+                    // Write the rows in the limit instead of the children.
+                    cursor.skipChildren();
+                    beginContainer(name, elem);
+                    writeContents(((JmxTable) elem).limitRows(rowLimit));
+                } else if (beginContainer(name, elem)) {
+                    cursor.skipChildren();
+                }
+                break;
+            case EXIT:
+                endContainer(elem);
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+}
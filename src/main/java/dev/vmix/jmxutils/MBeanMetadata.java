@@ -0,0 +1,49 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+
+/**
+ * MBean metadata prepared for reading attributes.
+ */
+final class MBeanMetadata {
+
+    final MBeanInfo info;
+    final List<String> readableAttrNames;
+    final Map<String, String> attrTypes;
+    final Map<String, String> attrDescs;
+
+    MBeanMetadata(MBeanInfo info) {
+        this.info = info;
+        MBeanAttributeInfo[] attrInfos = info.getAttributes();
+        List<String> names = new ArrayList<>(attrInfos.length);
+        Map<String, String> types = new HashMap<>();
+        Map<String, String> descs = new HashMap<>();
+        for (MBeanAttributeInfo attrInfo : attrInfos) {
+            if (!attrInfo.isReadable()) {
+                continue;
+            }
+            String attrName = attrInfo.getName();
+            String attrType = attrInfo.getType();
+            String attrDesc = attrInfo.getDescription();
+            if (attrDesc != null && (attrDesc.equals(attrName) || attrDesc.equals(attrType))) {
+                attrDesc = null;
+            }
+            names.add(attrName);
+            types.put(attrName, attrType);
+            descs.put(attrName, attrDesc);
+        }
+        this.readableAttrNames = Collections.unmodifiableList(names);
+        this.attrTypes = types;
+        this.attrDescs = descs;
+    }
+}
@@ -1,21 +1,45 @@
 package dev.vmix.jmxutils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.security.Permission;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.regex.Pattern;
 
+import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 
 import static dev.vmix.jmxutils.CliHelper.*;
 
-import dev.vmix.jmxutils.models.JmxElem.ElemType;
+import dev.vmix.jmxutils.models.JmxElem;
+import dev.vmix.jmxutils.models.JmxElemUtils;
 import dev.vmix.jmxutils.models.JmxMap;
+import dev.vmix.jmxutils.models.JmxProjection;
 
 /**
  * JMX Utility Main
@@ -23,20 +47,83 @@ import dev.vmix.jmxutils.models.JmxMap;
 public class Main {
 
     private static final String[] HELP_MESSAGE = {
-        "Usage: java -jar jmxutils.jar [-v] -h HOST -p PORT COMMAND ARGS ...",
-        "       java -jar jmxutils.jar [-v] -P PID COMMAND ARGS ...",
+        "Usage: java -jar jmxutils.jar [-v] [-c] -h HOST -p PORT COMMAND ARGS ...",
+        "       java -jar jmxutils.jar [-v] [-c] -P PID COMMAND ARGS ...",
+        "       java -jar jmxutils.jar [-v] [-c] [-T TIMEOUT] TARGETS ... COMMAND ARGS ...",
         "",
         "[OPTIONS]",
-        "-v      - verbose mode",
-        "-h HOST - target host",
-        "-p PORT - target port",
-        "-P PID  - target PID",
+        "-v         - verbose mode",
+        "-c         - compact JSON output",
+        "-R ROWS    - maximum number of rows shown for each tabular value. (default: unlimited)",
+        "-h HOST    - target host",
+        "-p PORT    - target port",
+        "-P PID     - target PID",
+        "-f FILE    - read targets (\"HOST:PORT\" or \"PID\" per line) from FILE",
+        "-T TIMEOUT - timeout per target in seconds for multiple targets. (default: 30)",
+        "-t TIMEOUT - connect timeout in seconds. (default: none)",
+        "-r TIMEOUT - timeout of each call to target in seconds. (default: none)",
+        "-D PORT    - send list/show to the daemon listening on local PORT instead of connecting to target.",
+        "",
+        "-h, -p and -P can be repeated to specify multiple targets. A single host is combined with each port,",
+        "a single port with each host, and otherwise hosts and ports are paired in order.",
+        "Multiple targets are queried concurrently (list and show only), and results are tagged by target.",
         "",
         "[COMMAND]",
-        "list [PATTERN] - list MBeans. (PATTERN is written as a regular expression)",
-        "show NAME      - show MBean information."
+        "list [PATTERN] - list MBeans.",
+        "                 (PATTERN is written as an ObjectName pattern such as \"java.lang:type=*\",",
+        "                  or a regular expression such as \"java.lang:type=.*\")",
+        "show [-j JOBS] NAME [ATTR[.PATH] ...]",
+        "               - show MBean information. (only the selected attributes and sub-paths if specified)",
+        "                 (e.g. \"show java.lang:type=Memory HeapMemoryUsage.used\")",
+        "                 If NAME is a pattern, show all matched MBeans as one document keyed by name.",
+        "                 (e.g. \"show java.lang:type=GarbageCollector,* CollectionCount\")",
+        "dump [-j JOBS] [-o FILE] [PATTERN]",
+        "               - show information of all MBeans matching PATTERN as one document.",
+        "                 (JOBS is the number of concurrent fetches. default: " + Main.DEFAULT_DUMP_JOBS + ")",
+        "                 -o writes a binary snapshot to FILE instead.",
+        "watch NAME ATTR ... [-i INTERVAL] [-n COUNT] [-f csv|json] [-d [-C COUNTERS]]",
+        "               - sample attributes of MBean at a fixed rate, and print one line per sample.",
+        "                 (INTERVAL is in seconds. default: 1)",
+        "                 -d prints deltas and rates per second of numeric leaves. (after one more baseline sample)",
+        "                 (COUNTERS is comma separated ATTR[.PATH] whose leaves are counters, and are regarded",
+        "                  as reset when they decrease. e.g. \"-C CollectionCount\")",
+        "subscribe PATTERN [-q CAPACITY] [-n COUNT]",
+        "               - print notifications of MBeans matching PATTERN as JSON Lines until interrupted.",
+        "                 (CAPACITY is the size of the queue of notifications. default: "
+            + Main.DEFAULT_SUBSCRIBE_CAPACITY + ")",
+        "snapshot list FILE | snapshot show FILE [NAME] | snapshot diff FILE1 FILE2",
+        "               - read binary snapshots written by dump -o. (no target required)",
+        "                 diff prints added (+), removed (-) and changed (~) MBeans and attributes with deltas.",
+        "diff [-j JOBS] FILE [PATTERN]",
+        "               - print differences of MBeans matching PATTERN from the snapshot FILE to the current ones.",
+        "jvms           - list attachable local JVMs as \"PID<TAB>ADDRESS<TAB>NAME\". (no target required)",
+        "                 (ADDRESS is \"-\" if the local management agent is not started)",
+        "daemon [-l PORT] [-i IDLE]",
+        "               - keep connections to targets open, and answer list/show over HTTP on 127.0.0.1:PORT.",
+        "                 (no target required. PORT default: " + Main.DEFAULT_DAEMON_PORT
+            + ", IDLE is the idle timeout of connections in seconds. default: 300)",
+        "                 e.g. curl 'http://127.0.0.1:PORT/show?target=HOST:PORT&name=java.lang:type=Memory'",
+        "metrics [-l [HOST:]PORT] [-s] [-r RULES] [RULE ...]",
+        "               - serve numeric attributes of targets as OpenMetrics text on http://HOST:PORT/metrics.",
+        "                 (PORT default: " + Main.DEFAULT_METRICS_PORT + ". -s prints one scrape and exits)",
+        "                 RULE is \"PATTERN [PATH [PREFIX]]\", and RULES is a file of RULE per line.",
+        "                 (e.g. \"java.lang:type=Memory HeapMemoryUsage\\..*\". default: \"java.lang:*\")"
     };
 
+    private static final int DEFAULT_DUMP_JOBS = 4;
+
+    private static final int DEFAULT_SUBSCRIBE_CAPACITY = 4096;
+
+    private static final long DEFAULT_TARGET_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final int DEFAULT_DAEMON_PORT = 8765;
+
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(300);
+
+    private static final int DEFAULT_METRICS_PORT = 9464;
+
+    private static final int METRICS_METADATA_CACHE_SIZE = 4096;
+
     private static final String USE_CODEBASE_ONLY = "java.rmi.server.useCodebaseOnly";
 
     static {
@@ -45,6 +132,10 @@ public class Main {
 
     PrintStream out;
 
+    boolean compact = false;
+
+    int rowLimit = Integer.MAX_VALUE;
+
     public Main(PrintStream out) {
         this.out = out;
     }
@@ -58,109 +149,619 @@ public class Main {
         System.exit(1);
     }
 
-    private static String indent(int level) {
-        StringBuilder buf = new StringBuilder(level * 2);
-        for (int i = 0; i < level; i++) {
-            buf.append("  ");
+    private static String removeOption(List<String> argList, String option) {
+        int index = argList.indexOf(option);
+        if (index < 0) {
+            return null;
+        }
+        if (index + 1 >= argList.size()) {
+            help("[ERROR] Missing value of option: " + option);
+        }
+        argList.remove(index);
+        return argList.remove(index);
+    }
+
+    private static ObjectName parseObjectName(String objectNameStr) {
+        try {
+            return new ObjectName(objectNameStr);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
         }
-        return buf.toString();
     }
 
     private void list(JmxClient client, List<String> argList) throws IOException {
-        Predicate<String> test;
+        client.findMBeanNames(argList.isEmpty() ? null : argList.remove(0)).forEach(out::println);
+    }
+
+    private JsonWriter newJsonWriter(boolean verbose) {
+        return new JsonWriter(new OutputStreamWriter(out), verbose, compact, rowLimit);
+    }
+
+    /**
+     * Show MBean information.
+     * <p>
+     * If NAME is a pattern, it is resolved on the server side, and information of all matched MBeans is fetched
+     * concurrently and written as one document keyed by canonical name.
+     * </p>
+     */
+    private void show(JmxClient client, List<String> argList, boolean verbose) throws IOException {
+        int jobs = parseJobs(argList);
         if (argList.isEmpty()) {
-            test = name -> true;
-        } else {
-            String patternStr = argList.remove(0);
-            Pattern pattern = Pattern.compile(patternStr);
-            test = name -> pattern.matcher(name).find();
+            help("[ERROR] Requrired: show [-j JOBS] NAME [ATTR[.PATH] ...]");
+        }
+        ObjectName objectName = parseObjectName(argList.remove(0));
+        // ATTR[.path] ... selects attributes and their sub-paths.
+        Map<String, JmxProjection> projections = null;
+        if (!argList.isEmpty()) {
+            try {
+                projections = JmxProjection.parse(argList);
+            } catch (IllegalArgumentException e) {
+                abort(e.getMessage());
+            }
+        }
+        // The document begins only after the MBeans are found, so an error leaves no partial output.
+        JsonWriter writer = newJsonWriter(verbose);
+        Map<String, JmxProjection> selected = projections;
+        List<String> attrNames = selected != null ? new ArrayList<>(selected.keySet()) : null;
+        if (objectName.isPattern()) {
+            List<ObjectName> names = client.getMBeanNames(objectName);
+            writer.beginDocument();
+            BeanFetcher fetcher = selected != null ? name -> getSelectedMBeanInfo(client, name, attrNames, selected)
+                : client::getMBeanInfo;
+            fetchBeans(names, jobs, fetcher, (name, elem) -> {
+                writer.write(name.getCanonicalName(), elem);
+                writer.flush();
+            });
+            writer.endDocument();
+            if (verbose) {
+                info("Saved round trips: " + client.getSavedRoundTrips());
+            }
+            return;
+        }
+        // Wrap and write attributes one by one, without building the whole tree.
+        try {
+            client.streamMBeanInfo(objectName, attrNames, new AttributeSink() {
+
+                @Override
+                public void beginMBean(ObjectName name, String className, String description) throws IOException {
+                    writer.beginDocument();
+                }
+
+                @Override
+                public void attribute(String name, Object value, String typeName, String description)
+                    throws IOException {
+                    JmxProjection projection = selected != null ? selected.get(name) : null;
+                    writer.write(name, projection != null ? projection.wrap(name, value, typeName, description)
+                        : JmxElemUtils.wrap(name, value, typeName, description));
+                    writer.flush();
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            abort(e.getMessage());
+        }
+        writer.endDocument();
+        if (verbose) {
+            info("Saved round trips: " + client.getSavedRoundTrips());
         }
-        client.getMBeans().forEach(obj -> {
-            ObjectName name = obj.getObjectName();
-            if (test.test(name.getCanonicalName())) {
-                out.println(obj.getObjectName());
+    }
+
+    private static JmxMap getSelectedMBeanInfo(JmxClient client, ObjectName objectName, List<String> attrNames,
+        Map<String, JmxProjection> projections) throws IOException {
+        JmxMap[] map = { null };
+        client.streamMBeanInfo(objectName, attrNames, new AttributeSink() {
+
+            @Override
+            public void beginMBean(ObjectName name, String className, String description) {
+                map[0] = JmxElemUtils.newEmptyMap(name.getCanonicalName(), className, description);
+            }
+
+            @Override
+            public void attribute(String name, Object value, String typeName, String description) {
+                map[0].putElem(projections.get(name).wrap(name, value, typeName, description));
             }
         });
+        return map[0];
     }
 
-    private void show(JmxClient client, List<String> argList, boolean verbose) throws IOException {
-        String objectNameStr = argList.remove(0);
-        JmxMap map = client.getMBeanInfo(objectNameStr);
-        out.println("{");
-        map.walk((walker, elem, isFirst, isLast, parentElemType, parentKeys) -> {
-            int level = parentKeys.length + 1;
-            String indent = indent(level);
-            String comma = isLast ? "" : ",";
-            String typeName = "";
-            String value = "";
-            String description = "";
-            if (elem.getElemType() == ElemType.ENTITY) {
-                value = JsonUtils.encodeEntity(elem.getValue());
+    @FunctionalInterface
+    private interface BeanFetcher {
+
+        JmxMap fetch(ObjectName name) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface BeanConsumer {
+
+        void accept(ObjectName name, JmxElem<?> elem) throws IOException;
+    }
+
+    private static int parseJobs(List<String> argList) {
+        String jobsStr = removeOption(argList, "-j");
+        if (jobsStr == null) {
+            return DEFAULT_DUMP_JOBS;
+        }
+        if (!jobsStr.matches("[1-9]\\d*")) {
+            abort("Invalid number of jobs: " + jobsStr);
+        }
+        return Integer.parseInt(jobsStr);
+    }
+
+    /**
+     * Fetch information of MBeans concurrently, and pass them to the consumer in order of names.
+     * <p>
+     * A failed fetch is passed as "[ExceptionClass] message" string.
+     * </p>
+     */
+    private static void fetchBeans(List<ObjectName> names, int jobs, BeanFetcher fetcher, BeanConsumer consumer)
+        throws IOException {
+        // Keep at most jobs * 2 beans in flight, and pass them in order as soon as each one arrives.
+        ExecutorService executor = Executors.newFixedThreadPool(jobs, r -> {
+            Thread thread = new Thread(r, "dump-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Deque<Future<JmxMap>> pending = new ArrayDeque<>();
+            Iterator<ObjectName> iter = names.iterator();
+            for (int index = 0; index < names.size(); index++) {
+                while (iter.hasNext() && pending.size() < jobs * 2) {
+                    ObjectName name = iter.next();
+                    pending.add(executor.submit(() -> fetcher.fetch(name)));
+                }
+                ObjectName name = names.get(index);
+                JmxElem<?> elem;
+                try {
+                    elem = pending.remove().get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() instanceof RuntimeException && e.getCause().getCause() != null
+                        ? e.getCause().getCause() : e.getCause();
+                    String error = String.format("[%s] %s", cause.getClass().getCanonicalName(), cause.getMessage());
+                    elem = JmxElemUtils.wrap(name.getCanonicalName(), error, null, null);
+                }
+                consumer.accept(name, elem);
             }
-            if (verbose) {
-                typeName = String.format("[%s, ", JsonUtils.encodeEntity(elem.getValueTypeName()));
-                if (elem.getDescription() == null) {
-                    description = "]";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void dump(JmxClient client, List<String> argList, boolean verbose) throws IOException {
+        int jobs = parseJobs(argList);
+        String outputFile = removeOption(argList, "-o");
+        if (argList.size() > 1) {
+            help("[ERROR] Requrired: dump [-j JOBS] [-o FILE] [PATTERN]");
+        }
+        List<ObjectName> names = client.findMBeanNames(argList.isEmpty() ? null : argList.remove(0));
+        if (outputFile != null) {
+            try (SnapshotWriter writer = new SnapshotWriter(Paths.get(outputFile))) {
+                fetchBeans(names, jobs, client::getMBeanInfo,
+                    (name, elem) -> writer.writeBean(name.getCanonicalName(), elem));
+            }
+        } else {
+            JsonWriter writer = newJsonWriter(verbose);
+            writer.beginDocument();
+            fetchBeans(names, jobs, client::getMBeanInfo, (name, elem) -> {
+                writer.write(name.getCanonicalName(), elem);
+                writer.flush();
+            });
+            writer.endDocument();
+        }
+        if (verbose) {
+            info("Saved round trips: " + client.getSavedRoundTrips());
+        }
+    }
+
+    /**
+     * Compare a saved snapshot with the current MBeans.
+     */
+    private void diff(JmxClient client, List<String> argList) throws IOException {
+        int jobs = parseJobs(argList);
+        if (argList.isEmpty() || argList.size() > 2) {
+            help("[ERROR] Requrired: diff [-j JOBS] FILE [PATTERN]");
+        }
+        String pattern = argList.size() > 1 ? argList.get(1) : null;
+        List<ObjectName> names = client.findMBeanNames(pattern);
+        DiffPrinter printer = new DiffPrinter(out);
+        try (Snapshot snapshot = Snapshot.open(Paths.get(argList.get(0)))) {
+            Set<String> liveNames = new HashSet<>();
+            fetchBeans(names, jobs, client::getMBeanInfo, (name, elem) -> {
+                String canonicalName = name.getCanonicalName();
+                liveNames.add(canonicalName);
+                if (snapshot.contains(canonicalName)) {
+                    printer.diff(canonicalName, snapshot.load(canonicalName), elem);
                 } else {
-                    description = String.format(", %s]", JsonUtils.encodeEntity(elem.getDescription()));
-                }
-            }
-            switch (parentElemType) {
-            case ENTITY:
-                throw new IllegalStateException();
-            case LIST:
-                switch (elem.getElemType()) {
-                case ENTITY:
-                    out.printf("%s%s%s%s%s%n", indent, typeName, value, description, comma);
-                    break;
-                case LIST:
-                    out.printf("%s%s[%n", indent, typeName);
-                    elem.walk(walker, parentKeys, elem.getName());
-                    out.printf("%s]%s%s%n", indent, description, comma);
-                    break;
-                case MAP:
-                    out.printf("%s%s{%n", indent, typeName);
-                    elem.walk(walker, parentKeys, elem.getName());
-                    out.printf("%s}%s%s%n", indent, description, comma);
-                    break;
-                }
-                break;
-            case MAP:
-                String name = JsonUtils.encodeEntity(elem.getName());
-                switch (elem.getElemType()) {
-                case ENTITY:
-                    out.printf("%s%s: %s%s%s%s%n", indent, name, typeName, value, description, comma);
-                    break;
-                case LIST:
-                    out.printf("%s%s: %s[%n", indent, name, typeName);
-                    elem.walk(walker, parentKeys, elem.getName());
-                    out.printf("%s]%s%s%n", indent, description, comma);
-                    break;
-                case MAP:
-                    out.printf("%s%s: %s{%n", indent, name, typeName);
-                    elem.walk(walker, parentKeys, elem.getName());
-                    out.printf("%s}%s%s%n", indent, description, comma);
-                    break;
-                }
-                break;
-            }
-            return true;
+                    printer.added(canonicalName);
+                }
+            });
+            Predicate<ObjectName> matcher = JmxClient.newNameMatcher(pattern);
+            for (String name : snapshot.getNames()) {
+                if (!liveNames.contains(name) && matcher.test(parseObjectName(name))) {
+                    printer.removed(name);
+                }
+            }
+        }
+    }
+
+    private void snapshot(List<String> argList, boolean verbose) throws IOException {
+        String subCmd = argList.isEmpty() ? "" : argList.remove(0);
+        switch (subCmd) {
+        case "list": // snapshot list FILE
+            if (argList.size() != 1) {
+                help("[ERROR] Requrired: snapshot list FILE");
+            }
+            try (Snapshot snapshot = Snapshot.open(Paths.get(argList.get(0)))) {
+                snapshot.getNames().forEach(out::println);
+            }
+            break;
+
+        case "show": // snapshot show FILE [NAME]
+            if (argList.isEmpty() || argList.size() > 2) {
+                help("[ERROR] Requrired: snapshot show FILE [NAME]");
+            }
+            try (Snapshot snapshot = Snapshot.open(Paths.get(argList.get(0)))) {
+                JsonWriter writer = newJsonWriter(verbose);
+                if (argList.size() == 1) {
+                    writer.beginDocument();
+                    for (String name : snapshot.getNames()) {
+                        writer.write(name, snapshot.load(name));
+                        writer.flush();
+                    }
+                    writer.endDocument();
+                } else {
+                    String name = parseObjectName(argList.get(1)).getCanonicalName();
+                    if (!snapshot.contains(name)) {
+                        abort("No MBean in snapshot: " + name);
+                    }
+                    writer.beginDocument();
+                    writer.writeContents(snapshot.load(name));
+                    writer.endDocument();
+                }
+            }
+            break;
+
+        case "diff": // snapshot diff FILE1 FILE2
+            if (argList.size() != 2) {
+                help("[ERROR] Requrired: snapshot diff FILE1 FILE2");
+            }
+            try (Snapshot oldSnapshot = Snapshot.open(Paths.get(argList.get(0)));
+                Snapshot newSnapshot = Snapshot.open(Paths.get(argList.get(1)))) {
+                // Unchanged MBeans are skipped by their hashes without loading them.
+                DiffPrinter printer = new DiffPrinter(out);
+                oldSnapshot.diff(newSnapshot).forEach((name, change) -> {
+                    switch (change) {
+                    case ADDED:
+                        printer.added(name);
+                        break;
+                    case REMOVED:
+                        printer.removed(name);
+                        break;
+                    default:
+                        printer.diff(name, oldSnapshot.load(name), newSnapshot.load(name));
+                        break;
+                    }
+                });
+            }
+            break;
+
+        default:
+            help("[ERROR] Requrired: snapshot list|show|diff FILE ...");
+            break;
+        }
+    }
+
+    private void watch(JmxClient client, List<String> argList) throws IOException {
+        String intervalStr = removeOption(argList, "-i");
+        String countStr = removeOption(argList, "-n");
+        String formatStr = removeOption(argList, "-f");
+        String countersStr = removeOption(argList, "-C");
+        boolean delta = argList.remove("-d");
+        if (argList.size() < 2 || (countersStr != null && !delta)) {
+            help("[ERROR] Requrired: watch NAME ATTR ... [-i INTERVAL] [-n COUNT] [-f csv|json] [-d [-C COUNTERS]]");
+        }
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1);
+        if (intervalStr != null) {
+            if (!intervalStr.matches("\\d+(\\.\\d+)?|\\.\\d+")) {
+                abort("Invalid interval: " + intervalStr);
+            }
+            intervalNanos = (long) (Double.parseDouble(intervalStr) * TimeUnit.SECONDS.toNanos(1));
+            if (intervalNanos <= 0) {
+                abort("Invalid interval: " + intervalStr);
+            }
+        }
+        long count = 0;
+        if (countStr != null) {
+            if (!countStr.matches("\\d+")) {
+                abort("Invalid count: " + countStr);
+            }
+            count = Long.parseLong(countStr);
+        }
+        Watcher.Format format = Watcher.Format.CSV;
+        if (formatStr != null) {
+            try {
+                format = Watcher.Format.valueOf(formatStr.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                abort("Invalid format: " + formatStr);
+            }
+        }
+        ObjectName objectName = parseObjectName(argList.remove(0));
+        List<String> counterPaths = countersStr != null ? Arrays.asList(countersStr.split(",")) : new ArrayList<>();
+        Watcher watcher = new Watcher(client, out, objectName, new ArrayList<>(argList), intervalNanos, count, format,
+            delta, counterPaths);
+        try {
+            watcher.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void subscribe(JmxClient client, List<String> argList) throws IOException {
+        String capacityStr = removeOption(argList, "-q");
+        String countStr = removeOption(argList, "-n");
+        if (argList.size() != 1) {
+            help("[ERROR] Requrired: subscribe PATTERN [-q CAPACITY] [-n COUNT]");
+        }
+        int capacity = DEFAULT_SUBSCRIBE_CAPACITY;
+        if (capacityStr != null) {
+            if (!capacityStr.matches("[1-9]\\d*")) {
+                abort("Invalid capacity: " + capacityStr);
+            }
+            capacity = Integer.parseInt(capacityStr);
+        }
+        long count = 0;
+        if (countStr != null) {
+            if (!countStr.matches("\\d+")) {
+                abort("Invalid count: " + countStr);
+            }
+            count = Long.parseLong(countStr);
+        }
+        ObjectName pattern = parseObjectName(argList.get(0));
+        try {
+            new Subscriber(client, out, pattern, capacity, count).run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Make targets from -h and -p options.
+     * <p>
+     * If either of hosts or ports has only one element, it is combined with each element of the other. Otherwise,
+     * hosts and ports are paired in order.
+     * </p>
+     */
+    private static List<Target> pairTargets(List<String> hosts, List<Integer> ports) {
+        List<Target> targets = new ArrayList<>();
+        if (ports.isEmpty()) {
+            if (!hosts.isEmpty()) {
+                help("[ERROR] Requrired: -p PORT");
+            }
+        } else if (hosts.size() <= 1) {
+            String host = hosts.isEmpty() ? null : hosts.get(0);
+            ports.forEach(port -> targets.add(Target.of(host, port)));
+        } else if (ports.size() == 1) {
+            hosts.forEach(host -> targets.add(Target.of(host, ports.get(0))));
+        } else if (hosts.size() == ports.size()) {
+            for (int i = 0; i < hosts.size(); i++) {
+                targets.add(Target.of(hosts.get(i), ports.get(i)));
+            }
+        } else {
+            help("[ERROR] The numbers of -h and -p options do not match.");
+        }
+        return targets;
+    }
+
+    private static long parseTimeout(String timeoutStr) {
+        if (!timeoutStr.matches("\\d+(\\.\\d+)?|\\.\\d+")) {
+            abort("Invalid timeout: " + timeoutStr);
+        }
+        long timeoutMillis = (long) (Double.parseDouble(timeoutStr) * TimeUnit.SECONDS.toMillis(1));
+        if (timeoutMillis <= 0) {
+            abort("Invalid timeout: " + timeoutStr);
+        }
+        return timeoutMillis;
+    }
+
+    private void runFanOut(List<Target> targets, long timeoutMillis, Function<String, JmxClient> clientFactory,
+        List<String> argList, boolean verbose) {
+        FanOut fanOut = new FanOut(out, targets, timeoutMillis, clientFactory);
+        String cmd = argList.remove(0);
+        try {
+            switch (cmd) {
+            case "list": // list [PATTERN]
+                if (argList.size() > 1) {
+                    help("[ERROR] Requrired: list [PATTERN]");
+                }
+                fanOut.list(argList.isEmpty() ? null : argList.get(0));
+                break;
+
+            case "show": // show NAME
+                if (argList.size() != 1) {
+                    help("[ERROR] Requrired: show NAME");
+                }
+                fanOut.show(argList.get(0), verbose, compact, rowLimit);
+                break;
+
+            default:
+                help("[ERROR] Subcommand not supported for multiple targets: " + cmd);
+                break;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static int parsePort(String portStr) {
+        if (portStr == null || !portStr.matches("\\d+") || Integer.parseInt(portStr) > 65535) {
+            abort("Invalid port number: " + portStr);
+        }
+        return Integer.parseInt(portStr);
+    }
+
+    private void daemon(List<String> argList, Function<String, JmxClient> clientFactory) {
+        String portStr = removeOption(argList, "-l");
+        int port = portStr != null ? parsePort(portStr) : DEFAULT_DAEMON_PORT;
+        String idleStr = removeOption(argList, "-i");
+        long idleTimeoutMillis = idleStr != null ? parseTimeout(idleStr) : DEFAULT_IDLE_TIMEOUT_MILLIS;
+        if (!argList.isEmpty()) {
+            help("[ERROR] Requrired: daemon [-l PORT] [-i IDLE]");
+        }
+        ClientPool pool = new ClientPool(clientFactory, idleTimeoutMillis);
+        Daemon daemon;
+        try {
+            daemon = new Daemon(pool, port);
+        } catch (IOException e) {
+            pool.close();
+            abort("Cannot listen on port " + port + ": " + e.getMessage());
+            return;
+        }
+        daemon.start();
+        info("Listening on http://127.0.0.1:" + daemon.getPort() + "/");
+    }
+
+    private void metrics(List<Target> targets, List<String> argList, Function<String, JmxClient> clientFactory) {
+        String listenStr = removeOption(argList, "-l");
+        String rulesFile = removeOption(argList, "-r");
+        boolean once = argList.remove("-s");
+        InetSocketAddress address = new InetSocketAddress(DEFAULT_METRICS_PORT);
+        if (listenStr != null) {
+            int index = listenStr.lastIndexOf(':');
+            int port = parsePort(listenStr.substring(index + 1));
+            address = index < 0 ? new InetSocketAddress(port)
+                : new InetSocketAddress(listenStr.substring(0, index), port);
+        }
+        List<MetricRule> rules = new ArrayList<>();
+        try {
+            if (rulesFile != null) {
+                rules.addAll(MetricRule.readRules(rulesFile));
+            }
+            for (String spec : argList) {
+                rules.add(MetricRule.parse(spec));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            abort("Cannot read rules: " + e.getMessage());
+        }
+        if (rules.isEmpty()) {
+            rules.add(MetricRule.parse("java.lang:*"));
+        }
+        ClientPool pool = new ClientPool(addr -> {
+            JmxClient client = clientFactory.apply(addr);
+            client.enableMetadataCache(METRICS_METADATA_CACHE_SIZE);
+            return client;
+        }, DEFAULT_IDLE_TIMEOUT_MILLIS);
+        MetricsExporter exporter = new MetricsExporter(pool, targets, rules);
+        try {
+            if (once) {
+                exporter.scrape(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                exporter.stop();
+                return;
+            }
+            exporter.start(address);
+        } catch (IOException e) {
+            exporter.stop();
+            abort("Cannot serve metrics on " + address + ": " + e.getMessage());
+            return;
+        }
+        info("Serving metrics on http://" + address.getHostString() + ":" + exporter.getPort() + "/metrics");
+    }
+
+    private static String encodeParam(String key, String value) {
+        try {
+            return key + "=" + URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Send list/show to the daemon, and copy its response to output.
+     */
+    private void runOnDaemon(int port, Target target, List<String> argList, boolean verbose) {
+        String cmd = argList.remove(0);
+        StringBuilder url = new StringBuilder("http://127.0.0.1:").append(port).append('/').append(cmd)
+            .append('?').append(encodeParam("target", target.toString()));
+        switch (cmd) {
+        case "list": // list [PATTERN]
+            if (argList.size() > 1) {
+                help("[ERROR] Requrired: list [PATTERN]");
+            }
+            if (!argList.isEmpty()) {
+                url.append('&').append(encodeParam("pattern", argList.get(0)));
+            }
+            break;
+
+        case "show": // show NAME
+            if (argList.size() != 1) {
+                help("[ERROR] Requrired: show NAME");
+            }
+            url.append('&').append(encodeParam("name", argList.get(0)))
+                .append("&verbose=").append(verbose).append("&compact=").append(compact);
+            if (rowLimit != Integer.MAX_VALUE) {
+                url.append("&rows=").append(rowLimit);
+            }
+            break;
+
+        default:
+            help("[ERROR] Subcommand not supported by daemon: " + cmd);
+            break;
+        }
+        try {
+            HttpURLConnection conn = (HttpURLConnection) new URL(url.toString()).openConnection();
+            int status = conn.getResponseCode();
+            try (InputStream in = status == HttpURLConnection.HTTP_OK ? conn.getInputStream()
+                : conn.getErrorStream()) {
+                if (status != HttpURLConnection.HTTP_OK) {
+                    String msg = in != null ? new String(readAll(in), StandardCharsets.UTF_8).trim() : "";
+                    abort("Daemon returned " + status + ": " + msg);
+                    return;
+                }
+                byte[] buf = new byte[8192];
+                int len;
+                while ((len = in.read(buf)) >= 0) {
+                    out.write(buf, 0, len);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            abort("Cannot connect to daemon on port " + port + ": " + e.getMessage());
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int len;
+        while ((len = in.read(chunk)) >= 0) {
+            buf.write(chunk, 0, len);
+        }
+        return buf.toByteArray();
+    }
+
+    private void jvms() {
+        JmxLocalConnector.listLocalJvms().forEach(jvm -> {
+            String addr = jvm.getAddress() != null ? jvm.getAddress() : "-";
+            out.println(jvm.getPid() + "\t" + addr + "\t" + jvm.getDisplayName());
         });
-        out.println("}");
     }
 
     public void run(List<String> argList) {
         ListIterator<String> iter = argList.listIterator();
-        String host = null;
-        int port = -1;
-        int pid = -1;
+        List<String> hosts = new ArrayList<>();
+        List<Integer> ports = new ArrayList<>();
+        List<Target> targets = new ArrayList<>();
+        long timeoutMillis = DEFAULT_TARGET_TIMEOUT_MILLIS;
+        long connectTimeoutMillis = 0;
+        long callTimeoutMillis = 0;
+        int daemonPort = 0;
         boolean verbose = false;
         loop: while (iter.hasNext()) {
             String arg = iter.next();
             switch (arg) {
             case "-h":
                 iter.remove();
-                host = iter.next();
+                hosts.add(iter.next());
                 iter.remove();
                 break;
             case "-p":
@@ -170,7 +771,7 @@ public class Main {
                 if (!portStr.matches("\\d+")) {
                     abort("Invalid port number: " + portStr);
                 }
-                port = Integer.parseInt(portStr);
+                ports.add(Integer.parseInt(portStr));
                 break;
             case "-P":
                 iter.remove();
@@ -179,12 +780,55 @@ public class Main {
                 if (!pidStr.matches("\\d+")) {
                     abort("Invalid PID: " + pidStr);
                 }
-                pid = Integer.parseInt(pidStr);
+                targets.add(Target.of(Integer.parseInt(pidStr)));
+                break;
+            case "-f":
+                iter.remove();
+                String file = iter.next();
+                iter.remove();
+                try {
+                    targets.addAll(Target.readTargets(file));
+                } catch (IOException | IllegalArgumentException e) {
+                    abort("Cannot read targets: " + e.getMessage());
+                }
+                break;
+            case "-T":
+                iter.remove();
+                timeoutMillis = parseTimeout(iter.next());
+                iter.remove();
+                break;
+            case "-t":
+                iter.remove();
+                connectTimeoutMillis = parseTimeout(iter.next());
+                iter.remove();
+                break;
+            case "-r":
+                iter.remove();
+                callTimeoutMillis = parseTimeout(iter.next());
+                iter.remove();
+                break;
+            case "-D":
+                iter.remove();
+                daemonPort = parsePort(iter.next());
+                iter.remove();
                 break;
             case "-v":
                 iter.remove();
                 verbose = true;
                 break;
+            case "-c":
+                iter.remove();
+                compact = true;
+                break;
+            case "-R":
+                iter.remove();
+                String rowsStr = iter.next();
+                iter.remove();
+                if (!rowsStr.matches("\\d+")) {
+                    abort("Invalid number of rows: " + rowsStr);
+                }
+                rowLimit = Integer.parseInt(rowsStr);
+                break;
             default:
                 break loop;
             }
@@ -201,17 +845,60 @@ public class Main {
                 }
             });
         }
-        String addr;
-        if (pid >= 0) {
-            addr = JmxClient.getConnectorAddress(pid);
-            if (addr == null) {
-                help("[ERROR] Cannot attach process: pid=" + pid);
-                System.exit(1);
+        targets.addAll(pairTargets(hosts, ports));
+        if (targets.isEmpty() && !argList.isEmpty() && argList.get(0).equals("jvms")) {
+            argList.remove(0);
+            if (!argList.isEmpty()) {
+                help("[ERROR] Requrired: jvms");
             }
-        } else {
-            addr = JmxClient.getConnectorAddress(host, port);
+            jvms();
+            return;
         }
-        try (JmxClient client = new JmxClient(addr)) {
+        if (targets.isEmpty() && !argList.isEmpty() && argList.get(0).equals("snapshot")) {
+            argList.remove(0);
+            try {
+                snapshot(argList, verbose);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+        long connectTimeout = connectTimeoutMillis;
+        long callTimeout = callTimeoutMillis;
+        Function<String, JmxClient> clientFactory = addr -> new JmxClient(addr, connectTimeout, callTimeout);
+        if (targets.isEmpty() && !argList.isEmpty() && argList.get(0).equals("daemon")) {
+            argList.remove(0);
+            daemon(argList, clientFactory);
+            return;
+        }
+        if (targets.isEmpty()) {
+            help("[ERROR] Requrired: -h HOST -p PORT, -P PID or -f FILE");
+        }
+        if (argList.isEmpty()) {
+            help("[ERROR] Requrired: COMMAND");
+        }
+        if (argList.get(0).equals("metrics")) {
+            argList.remove(0);
+            metrics(targets, argList, clientFactory);
+            return;
+        }
+        if (daemonPort > 0) {
+            if (targets.size() > 1) {
+                help("[ERROR] Multiple targets are not supported with -D");
+            }
+            runOnDaemon(daemonPort, targets.get(0), argList, verbose);
+            return;
+        }
+        if (targets.size() > 1) {
+            runFanOut(targets, timeoutMillis, clientFactory, argList, verbose);
+            return;
+        }
+        Target target = targets.get(0);
+        String addr = target.getAddress();
+        if (addr == null) {
+            help("[ERROR] Cannot attach process: pid=" + target.getPid());
+        }
+        try (JmxClient client = clientFactory.apply(addr)) {
             String cmd = argList.remove(0);
             switch (cmd) {
             case "list": // list [PATTERN]
@@ -221,10 +908,26 @@ public class Main {
                 list(client, argList);
                 break;
 
-            case "show": // show NAME
+            case "show": // show [-j JOBS] NAME [ATTR[.PATH] ...]
                 show(client, argList, verbose);
                 break;
 
+            case "dump": // dump [-j JOBS] [-o FILE] [PATTERN]
+                dump(client, argList, verbose);
+                break;
+
+            case "diff": // diff [-j JOBS] FILE [PATTERN]
+                diff(client, argList);
+                break;
+
+            case "watch": // watch NAME ATTR ... [-i INTERVAL] [-n COUNT] [-f csv|json] [-d [-C COUNTERS]]
+                watch(client, argList);
+                break;
+
+            case "subscribe": // subscribe PATTERN [-q CAPACITY] [-n COUNT]
+                subscribe(client, argList);
+                break;
+
             default:
                 help("[ERROR] Illegal subcommand: " + cmd);
                 break;
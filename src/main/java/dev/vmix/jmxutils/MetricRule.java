@@ -0,0 +1,128 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Rule to select numeric leaves of MBeans as metrics.
+ * <p>
+ * A rule is written as "PATTERN [PATH [PREFIX]]" separated by white spaces.
+ * </p>
+ * <ul>
+ * <li>PATTERN - ObjectName pattern of MBeans. (e.g. "java.lang:type=GarbageCollector,*")
+ * <li>PATH - regular expression matched against the whole attribute path such as "HeapMemoryUsage.used".
+ * (default: all numeric leaves)
+ * <li>PREFIX - prefix of metric names. (default: DOMAIN_TYPE of the ObjectName)
+ * </ul>
+ */
+public final class MetricRule {
+
+    private final ObjectName pattern;
+    private final Pattern path;
+    private final String prefix;
+
+    private MetricRule(ObjectName pattern, Pattern path, String prefix) {
+        this.pattern = pattern;
+        this.path = path;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Parse rule.
+     *
+     * @param spec "PATTERN [PATH [PREFIX]]".
+     * @return rule.
+     */
+    public static MetricRule parse(String spec) {
+        String[] fields = spec.trim().split("\\s+");
+        if (fields.length > 3 || fields[0].isEmpty()) {
+            throw new IllegalArgumentException("Invalid rule: " + spec);
+        }
+        try {
+            ObjectName pattern = new ObjectName(fields[0]);
+            Pattern path = fields.length > 1 ? Pattern.compile(fields[1]) : null;
+            String prefix = fields.length > 2 ? fields[2] : null;
+            return new MetricRule(pattern, path, prefix);
+        } catch (MalformedObjectNameException | PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid rule: " + spec + " (" + e.getMessage() + ")", e);
+        }
+    }
+
+    /**
+     * Read rules from file.
+     * <p>
+     * Empty lines and lines starting with "#" are ignored.
+     * </p>
+     *
+     * @param file file name.
+     * @return list of rule.
+     * @throws IOException I/O error.
+     */
+    public static List<MetricRule> readRules(String file) throws IOException {
+        List<MetricRule> rules = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            rules.add(parse(line));
+        }
+        return rules;
+    }
+
+    public ObjectName getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Get prefix of metric names.
+     *
+     * @return prefix. (null if derived from the ObjectName)
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Check whether the attribute may contain leaves selected by this rule.
+     *
+     * @param attrName attribute name.
+     * @return true if the attribute path or its sub-paths may match.
+     */
+    public boolean mayMatchAttribute(String attrName) {
+        if (path == null) {
+            return true;
+        }
+        Matcher matcher = path.matcher(attrName);
+        // hitEnd() is true if a longer input (i.e. a sub-path) could match.
+        return matcher.matches() || matcher.hitEnd();
+    }
+
+    /**
+     * Check whether the leaf is selected by this rule.
+     *
+     * @param leafPath path of leaf. (attribute name and keys joined with ".")
+     * @return true if selected.
+     */
+    public boolean matchesPath(CharSequence leafPath) {
+        return path == null || path.matcher(leafPath).matches();
+    }
+
+    @Override
+    public String toString() {
+        return pattern + (path != null ? " " + path : "") + (prefix != null ? " " + prefix : "");
+    }
+}
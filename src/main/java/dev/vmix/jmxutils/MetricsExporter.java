@@ -0,0 +1,458 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularType;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import dev.vmix.jmxutils.models.JmxElemUtils;
+import dev.vmix.jmxutils.models.JmxTable;
+
+/**
+ * Exporter of numeric MBean attributes as OpenMetrics text.
+ * <p>
+ * Numeric and boolean leaves selected by {@link MetricRule}s are exported as gauges. Leaves in CompositeData,
+ * TabularData and maps are flattened by their paths (e.g. "HeapMemoryUsage.used"), and arrays are skipped. The
+ * metric name is "PREFIX_PATH", where PREFIX defaults to "DOMAIN_TYPE" of the ObjectName, and the other key
+ * properties of the ObjectName become labels. Names are sanitized, and a label name which collides with another one
+ * after sanitizing gets a suffix such as "_2".
+ * </p>
+ * <p>
+ * Each scrape reads the attributes of an MBean with one batched call, and fetches MBeans concurrently. Scrapes are
+ * serialized, and reuse their buffers.
+ * </p>
+ */
+public class MetricsExporter {
+
+    /** Content type of OpenMetrics text. */
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final String UP_METRIC = "jmxutils_up";
+    private static final String DURATION_METRIC = "jmxutils_scrape_duration_seconds";
+    private static final int FETCH_THREADS = 4;
+
+    private final ClientPool pool;
+    private final List<Target> targets;
+    private final List<MetricRule> rules;
+    private final ExecutorService fetcher;
+
+    // Buffers reused across scrapes. Samples of a target are collected into the scratch buffers, and merged into the
+    // families only if the target is scraped successfully.
+    private final Map<String, StringBuilder> families = new LinkedHashMap<>();
+    private final Map<String, StringBuilder> scratch = new LinkedHashMap<>();
+    private final StringBuilder path = new StringBuilder();
+    private final StringBuilder metricName = new StringBuilder();
+    private final char[] chars = new char[8192];
+
+    private HttpServer server = null;
+
+    /**
+     * Constructor.
+     *
+     * @param pool client pool. (the metadata cache of each client should be enabled)
+     * @param targets targets. (a "target" label is added if there are multiple targets)
+     * @param rules rules.
+     */
+    public MetricsExporter(ClientPool pool, List<Target> targets, List<MetricRule> rules) {
+        this.pool = pool;
+        this.targets = targets;
+        this.rules = rules;
+        this.fetcher = Executors.newFixedThreadPool(FETCH_THREADS, r -> {
+            Thread thread = new Thread(r, "metrics-fetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Append name with invalid characters replaced by "_".
+     *
+     * @param leading true if the name is at the beginning, where digits are not allowed.
+     */
+    private static void appendSanitized(StringBuilder buf, CharSequence str, boolean leading) {
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+                || (c >= '0' && c <= '9' && (i > 0 || !leading))) {
+                buf.append(c);
+            } else {
+                buf.append('_');
+            }
+        }
+    }
+
+    /**
+     * Get sanitized label name. A name which collides with a name already used gets a suffix "_2", "_3" ...
+     */
+    private static String labelName(Set<String> names, String name) {
+        StringBuilder buf = new StringBuilder();
+        appendSanitized(buf, name, true);
+        String labelName = buf.toString();
+        for (int n = 2; !names.add(labelName); n++) {
+            labelName = buf + "_" + n;
+        }
+        return labelName;
+    }
+
+    private static void appendLabel(StringBuilder buf, String labelName, String value) {
+        buf.append(buf.length() == 0 ? '{' : ',');
+        buf.append(labelName).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                buf.append("\\\\");
+                break;
+            case '"':
+                buf.append("\\\"");
+                break;
+            case '\n':
+                buf.append("\\n");
+                break;
+            default:
+                buf.append(c);
+                break;
+            }
+        }
+        buf.append('"');
+    }
+
+    static String labels(ObjectName objectName, Target target) {
+        StringBuilder buf = new StringBuilder();
+        Set<String> names = new HashSet<>();
+        if (target != null) {
+            // "target" is reserved for the target.
+            names.add("target");
+        }
+        // Sort by key for stable output. ("type" is a part of the metric name)
+        for (Map.Entry<String, String> prop : new TreeMap<>(objectName.getKeyPropertyList()).entrySet()) {
+            if (!prop.getKey().equals("type")) {
+                String value = prop.getValue();
+                if (value.startsWith("\"")) {
+                    value = ObjectName.unquote(value);
+                }
+                appendLabel(buf, labelName(names, prop.getKey()), value);
+            }
+        }
+        if (target != null) {
+            appendLabel(buf, "target", target.toString());
+        }
+        return buf.length() == 0 ? "" : buf.append('}').toString();
+    }
+
+    private static String defaultPrefix(ObjectName objectName) {
+        StringBuilder buf = new StringBuilder();
+        appendSanitized(buf, objectName.getDomain(), true);
+        String type = objectName.getKeyProperty("type");
+        if (type != null) {
+            appendSanitized(buf.append('_'), type, false);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Append Number or Boolean value as OpenMetrics number.
+     */
+    private static void appendValue(StringBuilder buf, Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d)) {
+                buf.append("NaN");
+            } else if (Double.isInfinite(d)) {
+                buf.append(d > 0 ? "+Inf" : "-Inf");
+            } else {
+                buf.append(d);
+            }
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            buf.append(value);
+        } else if (value instanceof Number) {
+            buf.append(((Number) value).longValue());
+        } else {
+            buf.append((Boolean) value ? '1' : '0');
+        }
+    }
+
+    private StringBuilder family(String name) {
+        return families.computeIfAbsent(name, k -> new StringBuilder());
+    }
+
+    private void mergeScratch() {
+        for (Map.Entry<String, StringBuilder> buf : scratch.entrySet()) {
+            if (buf.getValue().length() > 0) {
+                family(buf.getKey()).append(buf.getValue());
+            }
+        }
+    }
+
+    private void addSample(String prefix, List<MetricRule> beanRules, String labels, Object value) {
+        if (!(value instanceof Number || value instanceof Boolean)) {
+            return;
+        }
+        for (MetricRule rule : beanRules) {
+            if (rule.matchesPath(path)) {
+                metricName.setLength(0);
+                appendSanitized(metricName, rule.getPrefix() != null ? rule.getPrefix() : prefix, true);
+                metricName.append('_');
+                appendSanitized(metricName, path, false);
+                StringBuilder buf = scratch.computeIfAbsent(metricName.toString(), k -> new StringBuilder());
+                buf.append(metricName).append(labels).append(' ');
+                appendValue(buf, value);
+                buf.append('\n');
+                return;
+            }
+        }
+    }
+
+    private void collectAttribute(String prefix, List<MetricRule> beanRules, String labels, String attrName,
+        Object value) {
+        path.setLength(0);
+        path.append(attrName);
+        collectValue(prefix, beanRules, labels, value);
+    }
+
+    /**
+     * Collect leaves of value at the current path. The paths are the same as the ones of wrapped elements, but the
+     * value is walked without being wrapped.
+     */
+    private void collectValue(String prefix, List<MetricRule> beanRules, String labels, Object value) {
+        int length = path.length();
+        if (value instanceof Number || value instanceof Boolean) {
+            addSample(prefix, beanRules, labels, value);
+        } else if (value instanceof CompositeData) {
+            CompositeData cData = (CompositeData) value;
+            CompositeType cType = cData.getCompositeType();
+            if (JmxElemUtils.hasKeyValuePairOnly(cType)) {
+                collectValue(prefix, beanRules, labels, cData.get("value"));
+                return;
+            }
+            for (String key : cType.keySet()) {
+                path.append('.').append(key);
+                collectValue(prefix, beanRules, labels, cData.get(key));
+                path.setLength(length);
+            }
+        } else if (value instanceof TabularData) {
+            TabularType tType = ((TabularData) value).getTabularType();
+            List<String> indexNames = tType.getIndexNames();
+            boolean keyValueOnly = JmxTable.isKeyValueOnly(tType);
+            for (Object row : ((TabularData) value).values()) {
+                CompositeData cRow = (CompositeData) row;
+                path.append('.').append(JmxTable.rowKey(cRow, indexNames));
+                collectValue(prefix, beanRules, labels, keyValueOnly ? cRow.get("value") : cRow);
+                path.setLength(length);
+            }
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                path.append('.').append(entry.getKey());
+                collectValue(prefix, beanRules, labels, entry.getValue());
+                path.setLength(length);
+            }
+        }
+        // Lists and arrays are skipped.
+    }
+
+    /**
+     * Fetch attribute values which may be selected by the rules.
+     *
+     * @return attribute values, or null if no attribute is selected or the MBean is gone.
+     */
+    private static Map<String, Object> fetch(JmxClient client, ObjectName objectName, List<MetricRule> beanRules)
+        throws IOException {
+        try {
+            List<String> attrNames = new ArrayList<>();
+            for (String attrName : client.getMetadata(objectName).readableAttrNames) {
+                for (MetricRule rule : beanRules) {
+                    if (rule.mayMatchAttribute(attrName)) {
+                        attrNames.add(attrName);
+                        break;
+                    }
+                }
+            }
+            return attrNames.isEmpty() ? null : client.getAttributeValues(objectName, attrNames);
+        } catch (InstanceNotFoundException | ReflectionException e) {
+            // Unregistered after the query, or broken MBean. Skipped.
+            return null;
+        } catch (RuntimeException e) {
+            if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                throw e;
+            }
+            // Unregistered after the query. Skipped.
+            return null;
+        }
+    }
+
+    private void collect(JmxClient client, Target target) throws IOException {
+        scratch.values().forEach(buf -> buf.setLength(0));
+        Map<ObjectName, List<MetricRule>> beans = new LinkedHashMap<>();
+        for (MetricRule rule : rules) {
+            for (ObjectName name : client.getMBeanNames(rule.getPattern())) {
+                beans.computeIfAbsent(name, k -> new ArrayList<>(1)).add(rule);
+            }
+        }
+        // Fetch MBeans concurrently, and collect them in order.
+        List<Future<Map<String, Object>>> futures = new ArrayList<>(beans.size());
+        for (Map.Entry<ObjectName, List<MetricRule>> bean : beans.entrySet()) {
+            futures.add(fetcher.submit(() -> fetch(client, bean.getKey(), bean.getValue())));
+        }
+        try {
+            int index = 0;
+            for (Map.Entry<ObjectName, List<MetricRule>> bean : beans.entrySet()) {
+                Map<String, Object> values = futures.get(index++).get();
+                if (values == null) {
+                    continue;
+                }
+                ObjectName objectName = bean.getKey();
+                String prefix = defaultPrefix(objectName);
+                String labels = labels(objectName, target);
+                for (Map.Entry<String, Object> value : values.entrySet()) {
+                    collectAttribute(prefix, bean.getValue(), labels, value.getKey(), value.getValue());
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void write(Writer out, CharSequence str) throws IOException {
+        if (str instanceof StringBuilder) {
+            StringBuilder buf = (StringBuilder) str;
+            for (int pos = 0; pos < buf.length(); pos += chars.length) {
+                int end = Math.min(pos + chars.length, buf.length());
+                buf.getChars(pos, end, chars, 0);
+                out.write(chars, 0, end - pos);
+            }
+        } else {
+            out.write(str.toString());
+        }
+    }
+
+    /**
+     * Scrape all targets, and write metrics as OpenMetrics text.
+     *
+     * @param out output.
+     * @throws IOException I/O error in output.
+     */
+    public synchronized void scrape(Writer out) throws IOException {
+        families.values().forEach(buf -> buf.setLength(0));
+        boolean multi = targets.size() > 1;
+        for (Target target : targets) {
+            long start = System.nanoTime();
+            boolean up;
+            try {
+                pool.execute(target, client -> {
+                    collect(client, multi ? target : null);
+                    return null;
+                });
+                // Samples of a target which fails partway are dropped.
+                mergeScratch();
+                up = true;
+            } catch (IOException | RuntimeException e) {
+                up = false;
+            }
+            double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+            StringBuilder labelBuf = new StringBuilder();
+            appendLabel(labelBuf, "target", target.toString());
+            String labels = labelBuf.append('}').toString();
+            family(UP_METRIC).append(UP_METRIC).append(labels).append(' ').append(up ? '1' : '0').append('\n');
+            family(DURATION_METRIC).append(DURATION_METRIC).append(labels).append(' ').append(seconds)
+                .append('\n');
+        }
+        for (Map.Entry<String, StringBuilder> family : families.entrySet()) {
+            if (family.getValue().length() == 0) {
+                continue;
+            }
+            out.write("# TYPE ");
+            out.write(family.getKey());
+            out.write(" gauge\n");
+            write(out, family.getValue());
+        }
+        out.write("# EOF\n");
+        out.flush();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, 0);
+            scrape(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Start serving metrics on "/metrics".
+     *
+     * @param address listen address.
+     * @throws IOException I/O error.
+     */
+    public void start(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.createContext("/metrics", this::handle);
+        server.start();
+    }
+
+    /**
+     * Get the listen port.
+     *
+     * @return port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop serving metrics, and close all pooled clients.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        fetcher.shutdownNow();
+        pool.close();
+    }
+}
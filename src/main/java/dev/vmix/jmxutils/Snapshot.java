@@ -0,0 +1,430 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import dev.vmix.jmxutils.models.JmxElem;
+import dev.vmix.jmxutils.models.JmxElemUtils;
+import dev.vmix.jmxutils.models.JmxList;
+import dev.vmix.jmxutils.models.JmxMap;
+
+/**
+ * Binary snapshot of MBeans, read through a memory-mapped file.
+ * <p>
+ * Format: (varint is unsigned LEB128, zigzag is signed varint, and fixed numbers are little endian)
+ * </p>
+ *
+ * <pre>
+ * "JMXS" VERSION(1 byte)
+ * BEAN ...            - element tree of each MBean.
+ * STRING_TABLE        - varint count, and (varint length, UTF-8 bytes) per string.
+ * INDEX               - varint count, and (varint name, varint offset, varint length, fixed64 hash) per MBean.
+ * fixed64 STRING_TABLE offset, fixed64 INDEX offset, "JMXS"
+ * </pre>
+ * <p>
+ * An element is a tag, its name (omitted for list items), type name and description as references to the string
+ * table (varint, 0 means null, and 1 is the first string), and the payload of the tag. Maps and lists are followed by
+ * their children and an END tag, and primitive arrays are packed as a component tag, varint size and items.
+ * </p>
+ * <p>
+ * Only the index is read on open, and each bean is decoded on demand, so a single bean is loaded without parsing the
+ * whole file. The hash of a bean is computed from its content, independently of the string table, so snapshots are
+ * compared bean by bean without decoding them.
+ * </p>
+ */
+public class Snapshot implements Closeable {
+
+    static final byte[] MAGIC = { 'J', 'M', 'X', 'S' };
+    static final int VERSION = 1;
+
+    static final byte TAG_NULL = 0;
+    static final byte TAG_BOOLEAN = 1;
+    static final byte TAG_BYTE = 2;
+    static final byte TAG_SHORT = 3;
+    static final byte TAG_INT = 4;
+    static final byte TAG_LONG = 5;
+    static final byte TAG_FLOAT = 6;
+    static final byte TAG_DOUBLE = 7;
+    static final byte TAG_CHAR = 8;
+    static final byte TAG_STRING = 9;
+    static final byte TAG_DECIMAL = 10;
+    static final byte TAG_OTHER = 11;
+    static final byte TAG_MAP = 12;
+    static final byte TAG_LIST = 13;
+    static final byte TAG_ARRAY = 14;
+    static final byte TAG_END = 15;
+
+    static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int TRAILER_SIZE = 8 + 8 + MAGIC.length;
+
+    /**
+     * Change of MBean between snapshots.
+     */
+    public enum Change {
+        ADDED, REMOVED, CHANGED
+    }
+
+    private static class IndexEntry {
+
+        private final int offset;
+        private final int length;
+        private final long hash;
+
+        private IndexEntry(int offset, int length, long hash) {
+            this.offset = offset;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int[] stringOffsets;
+    private final String[] strings;
+    private final Map<String, IndexEntry> index = new LinkedHashMap<>();
+
+    private Snapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        int size = buffer.limit();
+        if (size < MAGIC.length + 1 + TRAILER_SIZE || !hasMagic(0) || !hasMagic(size - MAGIC.length)) {
+            throw new IOException("Not a snapshot");
+        }
+        if (buffer.get(MAGIC.length) != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + buffer.get(MAGIC.length));
+        }
+        ByteBuffer in = buffer.duplicate();
+        in.position(size - TRAILER_SIZE);
+        int stringTableOffset = (int) readFixedLong(in);
+        int indexOffset = (int) readFixedLong(in);
+        // Strings are located here, and decoded on demand.
+        in.position(stringTableOffset);
+        int count = (int) readVarLong(in);
+        this.stringOffsets = new int[count];
+        this.strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            stringOffsets[i] = in.position();
+            int length = (int) readVarLong(in);
+            in.position(in.position() + length);
+        }
+        in.position(indexOffset);
+        count = (int) readVarLong(in);
+        for (int i = 0; i < count; i++) {
+            String name = string((int) readVarLong(in));
+            int offset = (int) readVarLong(in);
+            int length = (int) readVarLong(in);
+            index.put(name, new IndexEntry(offset, length, readFixedLong(in)));
+        }
+    }
+
+    /**
+     * Open snapshot file.
+     *
+     * @param file snapshot file.
+     * @return snapshot.
+     * @throws IOException I/O error, or not a snapshot.
+     */
+    public static Snapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Too large snapshot: " + file);
+            }
+            // The mapping stays valid after the channel is closed.
+            return new Snapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private boolean hasMagic(int offset) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(offset + i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return v;
+            }
+        }
+    }
+
+    private static long readZigZag(ByteBuffer in) {
+        long v = readVarLong(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static long readFixedLong(ByteBuffer in) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v |= (long) (in.get() & 0xff) << (i * 8);
+        }
+        return v;
+    }
+
+    private static String readUtf8(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        ByteBuffer slice = in.slice();
+        slice.limit(length);
+        in.position(in.position() + length);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    /**
+     * Get string from the string table.
+     *
+     * @param ref reference. (0 means null)
+     */
+    private String string(int ref) {
+        if (ref == 0) {
+            return null;
+        }
+        String str = strings[ref - 1];
+        if (str == null) {
+            ByteBuffer in = buffer.duplicate();
+            in.position(stringOffsets[ref - 1]);
+            str = readUtf8(in);
+            strings[ref - 1] = str;
+        }
+        return str;
+    }
+
+    /**
+     * Get names of MBeans in order of writing.
+     *
+     * @return list of canonical object names.
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * Check whether the snapshot has the MBean.
+     *
+     * @param name canonical object name.
+     * @return true if the snapshot has the MBean.
+     */
+    public boolean contains(String name) {
+        return index.containsKey(name);
+    }
+
+    /**
+     * Get content hash of MBean.
+     *
+     * @param name canonical object name.
+     * @return content hash.
+     */
+    public long getHash(String name) {
+        return entry(name).hash;
+    }
+
+    private IndexEntry entry(String name) {
+        IndexEntry entry = index.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("No MBean in snapshot: " + name);
+        }
+        return entry;
+    }
+
+    /**
+     * Load information of MBean.
+     *
+     * @param name canonical object name.
+     * @return MBean information.
+     */
+    public JmxElem<?> load(String name) {
+        IndexEntry entry = entry(name);
+        ByteBuffer in = buffer.duplicate();
+        in.position(entry.offset);
+        in.limit(entry.offset + entry.length);
+        return readElem(in, null);
+    }
+
+    /**
+     * Load information of all MBeans as one map keyed by canonical object names, as "dump" does.
+     *
+     * @return map of MBean information.
+     */
+    public JmxMap loadAll() {
+        JmxMap map = JmxElemUtils.newEmptyMap(null, null, null);
+        index.keySet().forEach(name -> map.putElem(load(name)));
+        return map;
+    }
+
+    /**
+     * Compare MBeans with another snapshot by their hashes.
+     *
+     * @param other newer snapshot.
+     * @return map of changed MBean and its change, sorted by name.
+     */
+    public Map<String, Change> diff(Snapshot other) {
+        Map<String, Change> changes = new LinkedHashMap<>();
+        TreeSet<String> names = new TreeSet<>(index.keySet());
+        names.addAll(other.index.keySet());
+        for (String name : names) {
+            IndexEntry entry = index.get(name);
+            IndexEntry otherEntry = other.index.get(name);
+            if (entry == null) {
+                changes.put(name, Change.ADDED);
+            } else if (otherEntry == null) {
+                changes.put(name, Change.REMOVED);
+            } else if (entry.hash != otherEntry.hash) {
+                changes.put(name, Change.CHANGED);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Read element.
+     *
+     * @param name name of list item, or null to read it.
+     */
+    private JmxElem<?> readElem(ByteBuffer in, String name) {
+        byte tag = in.get();
+        if (name == null) {
+            name = string((int) readVarLong(in));
+        }
+        String typeName = string((int) readVarLong(in));
+        String description = string((int) readVarLong(in));
+        switch (tag) {
+        case TAG_MAP: {
+            JmxMap map = JmxElemUtils.newEmptyMap(name, typeName, description);
+            while (in.get(in.position()) != TAG_END) {
+                map.putElem(readElem(in, null));
+            }
+            in.get();
+            return map;
+        }
+        case TAG_LIST: {
+            JmxList list = JmxElemUtils.newEmptyList(name, typeName, description);
+            for (int i = 0; in.get(in.position()) != TAG_END; i++) {
+                list.addElem(readElem(in, Integer.toString(i)));
+            }
+            in.get();
+            return list;
+        }
+        case TAG_ARRAY:
+            return JmxElemUtils.wrap(name, readArray(in), typeName, description);
+        default:
+            return JmxElemUtils.wrap(name, readEntity(in, tag), typeName, description);
+        }
+    }
+
+    private static Object readEntity(ByteBuffer in, byte tag) {
+        switch (tag) {
+        case TAG_NULL:
+            return null;
+        case TAG_BOOLEAN:
+            return in.get() != 0;
+        case TAG_BYTE:
+            return (byte) readZigZag(in);
+        case TAG_SHORT:
+            return (short) readZigZag(in);
+        case TAG_INT:
+            return (int) readZigZag(in);
+        case TAG_LONG:
+            return readZigZag(in);
+        case TAG_FLOAT:
+            return Float.intBitsToFloat((int) readVarLong(in));
+        case TAG_DOUBLE:
+            return Double.longBitsToDouble(readFixedLong(in));
+        case TAG_CHAR:
+            return (char) readVarLong(in);
+        case TAG_STRING:
+        case TAG_OTHER:
+            return readUtf8(in);
+        case TAG_DECIMAL:
+            return new BigDecimal(readUtf8(in));
+        default:
+            throw new IllegalStateException("Broken snapshot: tag=" + tag + " at " + (in.position() - 1));
+        }
+    }
+
+    private static Object readArray(ByteBuffer in) {
+        byte tag = in.get();
+        int size = (int) readVarLong(in);
+        switch (tag) {
+        case TAG_LONG: {
+            long[] array = new long[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = readZigZag(in);
+            }
+            return array;
+        }
+        case TAG_INT: {
+            int[] array = new int[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = (int) readZigZag(in);
+            }
+            return array;
+        }
+        case TAG_SHORT: {
+            short[] array = new short[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = (short) readZigZag(in);
+            }
+            return array;
+        }
+        case TAG_BYTE: {
+            byte[] array = new byte[size];
+            in.get(array);
+            return array;
+        }
+        case TAG_DOUBLE: {
+            double[] array = new double[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = Double.longBitsToDouble(readFixedLong(in));
+            }
+            return array;
+        }
+        case TAG_FLOAT: {
+            float[] array = new float[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = Float.intBitsToFloat((int) readVarLong(in));
+            }
+            return array;
+        }
+        case TAG_BOOLEAN: {
+            boolean[] array = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = in.get() != 0;
+            }
+            return array;
+        }
+        case TAG_CHAR: {
+            char[] array = new char[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = (char) readVarLong(in);
+            }
+            return array;
+        }
+        default:
+            throw new IllegalStateException("Broken snapshot: array tag=" + tag + " at " + (in.position() - 1));
+        }
+    }
+
+    @Override
+    public void close() {
+        // Nothing to do. The mapping is released by GC.
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.vmix.jmxutils.models.JmxCursor;
+import dev.vmix.jmxutils.models.JmxElem;
+import dev.vmix.jmxutils.models.JmxElem.ElemType;
+import dev.vmix.jmxutils.models.JmxPrimitiveList;
+
+import static dev.vmix.jmxutils.Snapshot.*;
+
+/**
+ * Writer of binary snapshot of MBeans.
+ * <p>
+ * Beans are written one by one as they come, and the string table and the index are written on close. See
+ * {@link Snapshot} for the format.
+ * </p>
+ */
+public class SnapshotWriter implements Closeable {
+
+    private static class IndexEntry {
+
+        private final int nameId;
+        private final long offset;
+        private final int length;
+        private final long hash;
+
+        private IndexEntry(int nameId, long offset, int length, long hash) {
+            this.nameId = nameId;
+            this.offset = offset;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+
+    private final OutputStream out;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final List<IndexEntry> index = new ArrayList<>();
+    private final Map<String, Boolean> names = new HashMap<>();
+
+    // encoding buffer of the current bean, reused.
+    private byte[] buf = new byte[8192];
+    private int len = 0;
+    private long hash;
+    private long offset = 0;
+    private boolean closed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param file output file.
+     * @throws IOException I/O error.
+     */
+    public SnapshotWriter(Path file) throws IOException {
+        this(Files.newOutputStream(file));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param out output stream. (closed by this writer)
+     * @throws IOException I/O error.
+     */
+    public SnapshotWriter(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(out);
+        emit(MAGIC, MAGIC.length);
+        emit(VERSION);
+    }
+
+    private void emit(int b) throws IOException {
+        out.write(b);
+        offset++;
+    }
+
+    private void emit(byte[] bytes, int length) throws IOException {
+        out.write(bytes, 0, length);
+        offset += length;
+    }
+
+    private void ensure(int n) {
+        if (len + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+        }
+    }
+
+    private void hash(int b) {
+        hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+    }
+
+    private void writeByte(int b) {
+        ensure(1);
+        buf[len++] = (byte) b;
+        hash(b);
+    }
+
+    private void writeVarLong(long v) {
+        while ((v & ~0x7fL) != 0) {
+            writeByte((int) (v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        writeByte((int) v);
+    }
+
+    private void writeZigZag(long v) {
+        writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    private void writeFixedLong(long v) {
+        for (int i = 0; i < 8; i++) {
+            writeByte((int) (v >>> (i * 8)));
+        }
+    }
+
+    private void writeUtf8(String str) {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, len, bytes.length);
+        len += bytes.length;
+        for (byte b : bytes) {
+            hash(b);
+        }
+    }
+
+    private int stringId(String str) {
+        return stringIds.computeIfAbsent(str, s -> {
+            strings.add(s);
+            return strings.size();
+        });
+    }
+
+    /**
+     * Write reference to the string table. (0 means null)
+     * <p>
+     * The hash is computed from the content instead of the ID, so it does not depend on the string table.
+     * </p>
+     */
+    private void writeStringRef(String str) {
+        long savedHash = hash;
+        writeVarLong(str == null ? 0 : stringId(str));
+        hash = savedHash;
+        if (str == null) {
+            hash(0);
+        } else {
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                hash(c);
+                hash(c >>> 8);
+            }
+            hash(1);
+        }
+    }
+
+    private void writeHeader(byte tag, JmxElem<?> elem, boolean named) {
+        writeByte(tag);
+        if (named) {
+            writeStringRef(elem.getName());
+        }
+        writeStringRef(elem.getValueTypeName());
+        writeStringRef(elem.getDescription());
+    }
+
+    private void writeEntity(JmxElem<?> elem, boolean named) {
+        Object value = elem.getValue();
+        if (value == null) {
+            writeHeader(TAG_NULL, elem, named);
+        } else if (value instanceof Boolean) {
+            writeHeader(TAG_BOOLEAN, elem, named);
+            writeByte((Boolean) value ? 1 : 0);
+        } else if (value instanceof Long) {
+            writeHeader(TAG_LONG, elem, named);
+            writeZigZag((Long) value);
+        } else if (value instanceof Integer) {
+            writeHeader(TAG_INT, elem, named);
+            writeZigZag((Integer) value);
+        } else if (value instanceof Short) {
+            writeHeader(TAG_SHORT, elem, named);
+            writeZigZag((Short) value);
+        } else if (value instanceof Byte) {
+            writeHeader(TAG_BYTE, elem, named);
+            writeZigZag((Byte) value);
+        } else if (value instanceof Double) {
+            writeHeader(TAG_DOUBLE, elem, named);
+            writeFixedLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof Float) {
+            writeHeader(TAG_FLOAT, elem, named);
+            writeVarLong(Float.floatToRawIntBits((Float) value) & 0xffffffffL);
+        } else if (value instanceof Character) {
+            writeHeader(TAG_CHAR, elem, named);
+            writeVarLong((Character) value);
+        } else if (value instanceof String) {
+            writeHeader(TAG_STRING, elem, named);
+            writeUtf8((String) value);
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            writeHeader(TAG_DECIMAL, elem, named);
+            writeUtf8(value.toString());
+        } else {
+            // Other objects are restored as their string representation.
+            writeHeader(TAG_OTHER, elem, named);
+            writeUtf8(value.toString());
+        }
+    }
+
+    private void writeArray(JmxPrimitiveList list, boolean named) {
+        writeHeader(TAG_ARRAY, list, named);
+        Class<?> type = list.getComponentType();
+        Object array = list.getValue();
+        int size = list.size();
+        if (type == long.class) {
+            writeByte(TAG_LONG);
+            writeVarLong(size);
+            for (long v : (long[]) array) {
+                writeZigZag(v);
+            }
+        } else if (type == int.class) {
+            writeByte(TAG_INT);
+            writeVarLong(size);
+            for (int v : (int[]) array) {
+                writeZigZag(v);
+            }
+        } else if (type == short.class) {
+            writeByte(TAG_SHORT);
+            writeVarLong(size);
+            for (short v : (short[]) array) {
+                writeZigZag(v);
+            }
+        } else if (type == byte.class) {
+            writeByte(TAG_BYTE);
+            writeVarLong(size);
+            for (byte v : (byte[]) array) {
+                writeByte(v);
+            }
+        } else if (type == double.class) {
+            writeByte(TAG_DOUBLE);
+            writeVarLong(size);
+            for (double v : (double[]) array) {
+                writeFixedLong(Double.doubleToRawLongBits(v));
+            }
+        } else if (type == float.class) {
+            writeByte(TAG_FLOAT);
+            writeVarLong(size);
+            for (float v : (float[]) array) {
+                writeVarLong(Float.floatToRawIntBits(v) & 0xffffffffL);
+            }
+        } else if (type == boolean.class) {
+            writeByte(TAG_BOOLEAN);
+            writeVarLong(size);
+            for (boolean v : (boolean[]) array) {
+                writeByte(v ? 1 : 0);
+            }
+        } else {
+            writeByte(TAG_CHAR);
+            writeVarLong(size);
+            for (char v : (char[]) array) {
+                writeVarLong(v);
+            }
+        }
+    }
+
+    /**
+     * Write information of MBean.
+     *
+     * @param name canonical object name.
+     * @param elem MBean information. (e.g. the result of {@link JmxClient#getMBeanInfo(javax.management.ObjectName)})
+     * @throws IOException I/O error.
+     * @throws IllegalArgumentException name is duplicated, or differs from the name of elem.
+     */
+    public void writeBean(String name, JmxElem<?> elem) throws IOException {
+        if (!name.equals(elem.getName())) {
+            throw new IllegalArgumentException("Name mismatch: " + name + " and " + elem.getName());
+        }
+        if (names.put(name, Boolean.TRUE) != null) {
+            throw new IllegalArgumentException("Duplicate MBean: " + name);
+        }
+        len = 0;
+        hash = FNV_OFFSET;
+        if (elem.getElemType() == ElemType.ENTITY) {
+            writeEntity(elem, true);
+        } else if (elem instanceof JmxPrimitiveList) {
+            writeArray((JmxPrimitiveList) elem, true);
+        } else {
+            writeHeader(elem.getElemType() == ElemType.MAP ? TAG_MAP : TAG_LIST, elem, true);
+            writeContents(elem);
+            writeByte(TAG_END);
+        }
+        emit(buf, len);
+        index.add(new IndexEntry(stringId(name), offset - len, len, hash));
+    }
+
+    private void writeContents(JmxElem<?> container) {
+        JmxCursor cursor = new JmxCursor(container);
+        while (cursor.next()) {
+            boolean named = cursor.getParentElemType() != ElemType.LIST;
+            JmxElem<?> current = cursor.getElem();
+            switch (cursor.getEvent()) {
+            case ENTITY:
+                writeEntity(current, named);
+                break;
+            case ENTER:
+                if (current instanceof JmxPrimitiveList) {
+                    writeArray((JmxPrimitiveList) current, named);
+                    cursor.skipChildren();
+                } else {
+                    writeHeader(current.getElemType() == ElemType.MAP ? TAG_MAP : TAG_LIST, current, named);
+                }
+                break;
+            case EXIT:
+                if (!(current instanceof JmxPrimitiveList)) {
+                    writeByte(TAG_END);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private void emitVarLong(long v) throws IOException {
+        while ((v & ~0x7fL) != 0) {
+            emit((int) (v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        emit((int) v);
+    }
+
+    private void emitFixedLong(long v) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            emit((int) (v >>> (i * 8)));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long stringTableOffset = offset;
+            emitVarLong(strings.size());
+            for (String str : strings) {
+                byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                emitVarLong(bytes.length);
+                emit(bytes, bytes.length);
+            }
+            long indexOffset = offset;
+            emitVarLong(index.size());
+            for (IndexEntry entry : index) {
+                emitVarLong(entry.nameId);
+                emitVarLong(entry.offset);
+                emitVarLong(entry.length);
+                emitFixedLong(entry.hash);
+            }
+            emitFixedLong(stringTableOffset);
+            emitFixedLong(indexOffset);
+            emit(MAGIC, MAGIC.length);
+        } finally {
+            out.close();
+        }
+    }
+}
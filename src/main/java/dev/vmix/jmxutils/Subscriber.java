@@ -0,0 +1,229 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.AttributeChangeNotification;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.relation.MBeanServerNotificationFilter;
+import javax.management.remote.JMXConnectionNotification;
+
+import static dev.vmix.jmxutils.CliHelper.*;
+
+import dev.vmix.jmxutils.models.JmxElemUtils;
+
+/**
+ * Subscribe notifications of MBeans matching pattern, and write them as JSON Lines.
+ * <p>
+ * Listeners put notifications into a bounded queue without blocking the notification thread of the connector, and
+ * the caller thread drains the queue to the output. If the output cannot keep up, notifications are dropped and
+ * counted. The connector may also lose notifications which are not fetched in time. Whenever these counters change,
+ * a line of "jmxutils.dropped" type is written with their totals.
+ * </p>
+ * <p>
+ * MBeans registered later are subscribed automatically by listening to {@link MBeanServerDelegate}.
+ * </p>
+ */
+public class Subscriber {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private static final String DROPPED_TYPE = "jmxutils.dropped";
+
+    private static final long POLL_MILLIS = 100;
+
+    private static class Event {
+
+        private final ObjectName source;
+        private final Notification notification;
+
+        private Event(ObjectName source, Notification notification) {
+            this.source = source;
+            this.notification = notification;
+        }
+    }
+
+    private final JmxClient client;
+    private final ObjectName pattern;
+    private final long count;
+    private final BlockingQueue<Event> queue;
+    private final Set<ObjectName> subscribed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+    private final JsonWriter jsonWriter;
+    private final ExecutorService subscriber;
+
+    private final NotificationListener listener = (notification, handback) -> offer((ObjectName) handback,
+        notification);
+
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param client JMX client.
+     * @param out output.
+     * @param pattern ObjectName pattern.
+     * @param capacity capacity of the queue.
+     * @param count the number of notifications to write. (0 means unlimited)
+     */
+    public Subscriber(JmxClient client, PrintStream out, ObjectName pattern, int capacity, long count) {
+        this.client = client;
+        this.pattern = pattern;
+        this.count = count;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.jsonWriter = new JsonWriter(new OutputStreamWriter(out), false, true);
+        this.subscriber = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "subscribe-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void offer(ObjectName source, Notification notification) {
+        if (!queue.offer(new Event(source, notification))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void subscribe(ObjectName objectName) {
+        if (!subscribed.add(objectName)) {
+            return;
+        }
+        try {
+            if (!client.addNotificationListener(objectName, listener, null, objectName)) {
+                subscribed.remove(objectName);
+            }
+        } catch (IOException | RuntimeException e) {
+            subscribed.remove(objectName);
+            error(String.format("[%s] %s", e.getClass().getCanonicalName(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Listen to registrations of MBeans, and subscribe matching ones on the worker thread.
+     */
+    private void watchRegistrations() throws IOException {
+        MBeanServerNotificationFilter filter = new MBeanServerNotificationFilter();
+        filter.enableAllObjectNames();
+        NotificationListener delegateListener = (notification, handback) -> {
+            ObjectName name = ((MBeanServerNotification) notification).getMBeanName();
+            if (MBeanServerNotification.REGISTRATION_NOTIFICATION.equals(notification.getType())) {
+                if (pattern.apply(name)) {
+                    subscriber.execute(() -> subscribe(name));
+                }
+            } else {
+                // Listeners are removed with the MBean.
+                subscribed.remove(name);
+            }
+        };
+        client.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, delegateListener, filter, null);
+    }
+
+    private void write(Event event) throws IOException {
+        Notification notification = event.notification;
+        jsonWriter.beginDocument();
+        jsonWriter.writeEntity("time", formatTime(notification.getTimeStamp()), null, null);
+        jsonWriter.writeEntity("source", event.source.toString(), null, null);
+        jsonWriter.writeEntity("type", notification.getType(), null, null);
+        jsonWriter.writeEntity("sequence", notification.getSequenceNumber(), null, null);
+        jsonWriter.writeEntity("message", notification.getMessage(), null, null);
+        if (notification instanceof AttributeChangeNotification) {
+            AttributeChangeNotification change = (AttributeChangeNotification) notification;
+            String typeName = change.getAttributeType();
+            jsonWriter.writeEntity("attributeName", change.getAttributeName(), null, null);
+            jsonWriter.write("oldValue", JmxElemUtils.wrap("oldValue", change.getOldValue(), typeName, null));
+            jsonWriter.write("newValue", JmxElemUtils.wrap("newValue", change.getNewValue(), typeName, null));
+        }
+        if (notification.getUserData() != null) {
+            jsonWriter.write("userData", JmxElemUtils.wrap("userData", notification.getUserData(), null, null));
+        }
+        jsonWriter.endDocument();
+    }
+
+    private void writeDropped(long droppedCount, long lostCount) throws IOException {
+        jsonWriter.beginDocument();
+        jsonWriter.writeEntity("time", formatTime(System.currentTimeMillis()), null, null);
+        jsonWriter.writeEntity("type", DROPPED_TYPE, null, null);
+        jsonWriter.writeEntity("dropped", droppedCount, null, null);
+        jsonWriter.writeEntity("lost", lostCount, null, null);
+        jsonWriter.endDocument();
+    }
+
+    private static String formatTime(long epochMillis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).format(TIME_FORMAT);
+    }
+
+    /**
+     * Get the number of subscribed MBeans.
+     *
+     * @return the number of subscribed MBeans.
+     */
+    public int getSubscribedCount() {
+        return subscribed.size();
+    }
+
+    /**
+     * Subscribe notifications, and write them until the number of notifications reaches the count, the connection is
+     * closed or the thread is interrupted.
+     *
+     * @throws IOException I/O error.
+     * @throws InterruptedException interrupted.
+     */
+    public void run() throws IOException, InterruptedException {
+        client.addConnectionNotificationListener((notification, handback) -> {
+            String type = notification.getType();
+            if (JMXConnectionNotification.NOTIFS_LOST.equals(type)) {
+                Object userData = notification.getUserData();
+                lost.addAndGet(userData instanceof Long ? (Long) userData : 1);
+            } else if (JMXConnectionNotification.CLOSED.equals(type) || JMXConnectionNotification.FAILED.equals(type)) {
+                closed = true;
+            }
+        });
+        try {
+            watchRegistrations();
+            for (ObjectName objectName : client.getMBeanNames(pattern)) {
+                subscribe(objectName);
+            }
+            long written = 0;
+            long lastDropped = 0;
+            long lastLost = 0;
+            while (!closed && (count <= 0 || written < count)) {
+                Event event = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    write(event);
+                    written++;
+                }
+                long droppedCount = dropped.get();
+                long lostCount = lost.get();
+                if (droppedCount != lastDropped || lostCount != lastLost) {
+                    writeDropped(droppedCount, lostCount);
+                    lastDropped = droppedCount;
+                    lastLost = lostCount;
+                }
+            }
+        } finally {
+            subscriber.shutdownNow();
+        }
+    }
+}
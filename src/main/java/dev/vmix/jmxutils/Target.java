@@ -0,0 +1,135 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Target JVM.
+ * <p>
+ * A target is specified as "HOST:PORT" or "PID".
+ * </p>
+ */
+public final class Target {
+
+    private final String host;
+    private final int port;
+    private final int pid;
+
+    private Target(String host, int port, int pid) {
+        this.host = host;
+        this.port = port;
+        this.pid = pid;
+    }
+
+    /**
+     * Get target of remote JVM.
+     *
+     * @param host host.
+     * @param port port.
+     * @return target.
+     */
+    public static Target of(String host, int port) {
+        return new Target(host, port, -1);
+    }
+
+    /**
+     * Get target of local JVM.
+     *
+     * @param pid PID.
+     * @return target.
+     */
+    public static Target of(int pid) {
+        return new Target(null, -1, pid);
+    }
+
+    /**
+     * Parse target specification.
+     *
+     * @param spec "HOST:PORT" or "PID".
+     * @return target.
+     */
+    public static Target parse(String spec) {
+        if (spec.matches("\\d+")) {
+            return of(Integer.parseInt(spec));
+        }
+        int index = spec.lastIndexOf(':');
+        if (index <= 0 || !spec.substring(index + 1).matches("\\d+")) {
+            throw new IllegalArgumentException("Invalid target: " + spec);
+        }
+        return of(spec.substring(0, index), Integer.parseInt(spec.substring(index + 1)));
+    }
+
+    /**
+     * Read target specifications from file.
+     * <p>
+     * Empty lines and lines starting with "#" are ignored.
+     * </p>
+     *
+     * @param file file name.
+     * @return list of target.
+     * @throws IOException I/O error.
+     */
+    public static List<Target> readTargets(String file) throws IOException {
+        List<Target> targets = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                targets.add(parse(line));
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Check whether the target is a local JVM.
+     *
+     * @return true if the target is specified by PID.
+     */
+    public boolean isLocal() {
+        return pid >= 0;
+    }
+
+    /**
+     * Get PID.
+     *
+     * @return PID. (-1 if the target is not local)
+     */
+    public int getPid() {
+        return pid;
+    }
+
+    /**
+     * Get JMX connector address.
+     *
+     * @return JMX connector address. (null if the local JVM cannot be attached)
+     */
+    public String getAddress() {
+        if (isLocal()) {
+            return JmxClient.getConnectorAddress(pid);
+        } else {
+            return JmxClient.getConnectorAddress(host, port);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Target && toString().equals(obj.toString());
+    }
+
+    @Override
+    public String toString() {
+        return isLocal() ? Integer.toString(pid) : host + ":" + port;
+    }
+}
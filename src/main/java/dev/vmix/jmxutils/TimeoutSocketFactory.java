@@ -0,0 +1,57 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.server.RMIClientSocketFactory;
+
+/**
+ * RMI client socket factory with connect and read timeouts.
+ * <p>
+ * This is used for RMI registry lookups, which otherwise block forever on a wedged registry. Calls to the JMX agent
+ * are not covered, because the RMIConnection stub uses the socket factory exported by the server.
+ * </p>
+ */
+class TimeoutSocketFactory implements RMIClientSocketFactory, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    TimeoutSocketFactory(int connectTimeoutMillis, int readTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+            socket.setSoTimeout(readTimeoutMillis);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        return socket;
+    }
+
+    @Override
+    public int hashCode() {
+        return connectTimeoutMillis * 31 + readTimeoutMillis;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof TimeoutSocketFactory)) {
+            return false;
+        }
+        TimeoutSocketFactory other = (TimeoutSocketFactory) obj;
+        return connectTimeoutMillis == other.connectTimeoutMillis && readTimeoutMillis == other.readTimeoutMillis;
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+
+import static dev.vmix.jmxutils.CliHelper.*;
+
+import dev.vmix.jmxutils.models.JmxCursor;
+import dev.vmix.jmxutils.models.JmxElem;
+import dev.vmix.jmxutils.models.JmxElem.ElemType;
+import dev.vmix.jmxutils.models.JmxElemUtils;
+import dev.vmix.jmxutils.models.JmxPath;
+
+/**
+ * Sample attributes of MBean at a fixed rate over one connection.
+ * <p>
+ * MBeanInfo is read only once, and each sample costs one getAttributes call. Each sample is written as one line, and
+ * has the delay from its scheduled time as "drift" in milliseconds.
+ * </p>
+ * <p>
+ * In delta mode, each numeric leaf of the attributes (e.g. "HeapMemoryUsage.used") is written as the delta from the
+ * previous sample and its rate per second ("PATH/s") measured by the monotonic clock. Leaves are gauges, and a gauge
+ * which decreases has a negative delta. Leaves under the paths declared as counters (e.g. "CollectionCount") are
+ * regarded as reset when they decrease (e.g. the target is restarted), and "resets" is the number of such counters.
+ * The first sample is the baseline and is neither written nor counted, and CSV columns are fixed by it.
+ * </p>
+ */
+public class Watcher {
+
+    /**
+     * Output format.
+     */
+    public enum Format {
+        /** CSV with header line. */
+        CSV,
+        /** JSON Lines. */
+        JSON
+    }
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private final JmxClient client;
+    private final PrintStream out;
+    private final ObjectName objectName;
+    private final List<String> attrNames;
+    private final Map<String, String> attrTypes = new HashMap<>();
+    private final long intervalNanos;
+    private final long count;
+    private final Format format;
+    private final boolean delta;
+    private final List<String> counterPaths;
+    private final CounterStore counters = new CounterStore();
+    private final StringBuilder path = new StringBuilder();
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    private JsonWriter jsonWriter;
+    private long startNanos;
+    private long sampled = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param client JMX client.
+     * @param out output.
+     * @param objectName object name.
+     * @param attrNames attribute names.
+     * @param intervalNanos sampling interval in nanoseconds.
+     * @param count the number of printed samples. (0 means unlimited. the baseline sample of delta is not counted)
+     * @param format output format.
+     * @param delta write deltas and rates of numeric leaves instead of values.
+     * @param counterPaths attribute paths whose numeric leaves are counters. (e.g. "CollectionCount")
+     */
+    public Watcher(JmxClient client, PrintStream out, ObjectName objectName, List<String> attrNames,
+        long intervalNanos, long count, Format format, boolean delta, List<String> counterPaths) {
+        this.client = client;
+        this.out = out;
+        this.objectName = objectName;
+        this.attrNames = attrNames;
+        this.intervalNanos = intervalNanos;
+        this.count = count;
+        this.format = format;
+        this.delta = delta;
+        this.counterPaths = counterPaths;
+    }
+
+    private void init() {
+        MBeanInfo info = client.getMBeanMetadata(objectName);
+        for (MBeanAttributeInfo attrInfo : info.getAttributes()) {
+            if (attrInfo.isReadable()) {
+                attrTypes.put(attrInfo.getName(), attrInfo.getType());
+            }
+        }
+        for (String attrName : attrNames) {
+            if (!attrTypes.containsKey(attrName)) {
+                throw new IllegalArgumentException("No readable attribute: " + attrName + " in " + objectName);
+            }
+        }
+        if (format == Format.CSV) {
+            if (delta) {
+                // The header is written at the baseline sample.
+                return;
+            }
+            StringBuilder buf = new StringBuilder("time,drift");
+            for (String attrName : attrNames) {
+                buf.append(',');
+                appendCsvCell(buf, attrName);
+            }
+            out.println(buf);
+        } else {
+            jsonWriter = new JsonWriter(new OutputStreamWriter(out), false, true);
+        }
+    }
+
+    private static void appendCsvCell(StringBuilder buf, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            buf.append(value);
+        } else {
+            buf.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    private void writeCsv(String time, long driftMillis, Map<String, Object> values) throws IOException {
+        StringBuilder buf = new StringBuilder();
+        buf.append(time).append(',').append(driftMillis);
+        for (String attrName : attrNames) {
+            Object value = values.get(attrName);
+            buf.append(',');
+            if (value == null) {
+                continue;
+            }
+            JmxElem<?> elem = JmxElemUtils.wrap(attrName, value, attrTypes.get(attrName), null);
+            if (elem.getElemType() == ElemType.ENTITY) {
+                appendCsvCell(buf, value.toString());
+            } else {
+                StringWriter sw = new StringWriter();
+                JsonWriter writer = new JsonWriter(sw, false, true);
+                writer.write(null, elem);
+                writer.flush();
+                appendCsvCell(buf, sw.toString());
+            }
+        }
+        out.println(buf);
+    }
+
+    private void writeJson(String time, long driftMillis, Map<String, Object> values) throws IOException {
+        jsonWriter.beginDocument();
+        jsonWriter.writeEntity("time", time, null, null);
+        jsonWriter.writeEntity("drift", driftMillis, null, null);
+        for (String attrName : attrNames) {
+            Object value = values.get(attrName);
+            jsonWriter.write(attrName, JmxElemUtils.wrap(attrName, value, attrTypes.get(attrName), null));
+        }
+        jsonWriter.endDocument();
+    }
+
+    @FunctionalInterface
+    private interface CounterConsumer {
+
+        void accept(String path, CounterStore.Status status) throws IOException;
+    }
+
+    private boolean isCounter(String path) {
+        for (String counterPath : counterPaths) {
+            if (path.startsWith(counterPath)
+                && (path.length() == counterPath.length() || path.charAt(counterPath.length()) == '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateCounter(String path, Number value, long nanos, CounterConsumer consumer) throws IOException {
+        int id = counters.seriesId(objectName, path);
+        consumer.accept(path, counters.update(id, value, nanos, isCounter(path)));
+    }
+
+    /**
+     * Update counters by numeric leaves of attribute values, and pass each result to the consumer.
+     */
+    private void updateCounters(Map<String, Object> values, long nanos, CounterConsumer consumer)
+        throws IOException {
+        for (String attrName : attrNames) {
+            Object value = values.get(attrName);
+            if (value instanceof Number) {
+                updateCounter(attrName, (Number) value, nanos, consumer);
+                continue;
+            }
+            if (value == null) {
+                continue;
+            }
+            JmxElem<?> elem = JmxElemUtils.wrap(attrName, value, attrTypes.get(attrName), null);
+            if (elem.getElemType() != ElemType.MAP) {
+                continue;
+            }
+            JmxCursor cursor = new JmxCursor(elem);
+            JmxPath elemPath = cursor.getPath();
+            while (cursor.next()) {
+                switch (cursor.getEvent()) {
+                case ENTER:
+                    if (cursor.getElem().getElemType() == ElemType.LIST) {
+                        cursor.skipChildren();
+                    }
+                    break;
+                case ENTITY:
+                    Object leaf = cursor.getElem().getValue();
+                    if (leaf instanceof Number) {
+                        path.setLength(0);
+                        path.append(attrName);
+                        for (int i = 0; i < elemPath.size(); i++) {
+                            path.append('.').append(elemPath.get(i));
+                        }
+                        updateCounter(path.toString(), (Number) leaf, nanos, consumer);
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+    }
+
+    private Object lastDelta() {
+        return counters.isIntegral() ? (Object) counters.getLongDelta() : (Object) counters.getDoubleDelta();
+    }
+
+    private double lastRate() {
+        return Math.round(counters.getRate() * 1000.0) / 1000.0;
+    }
+
+    private void writeCsvHeader(Map<String, Object> values, long nanos) throws IOException {
+        StringBuilder buf = new StringBuilder("time,drift");
+        updateCounters(values, nanos, (path, status) -> {
+            columns.putIfAbsent(path, columns.size());
+            buf.append(',');
+            appendCsvCell(buf, path);
+            buf.append(',');
+            appendCsvCell(buf, path + "/s");
+        });
+        buf.append(",resets");
+        out.println(buf);
+    }
+
+    private void writeCsvDelta(String time, long driftMillis, Map<String, Object> values, long nanos)
+        throws IOException {
+        String[] cells = new String[columns.size() * 2];
+        int[] resets = { 0 };
+        updateCounters(values, nanos, (path, status) -> {
+            Integer column = columns.get(path);
+            if (column == null || status == CounterStore.Status.FIRST) {
+                return;
+            }
+            if (status == CounterStore.Status.RESET) {
+                resets[0]++;
+            }
+            cells[column * 2] = lastDelta().toString();
+            cells[column * 2 + 1] = Double.toString(lastRate());
+        });
+        StringBuilder buf = new StringBuilder();
+        buf.append(time).append(',').append(driftMillis);
+        for (String cell : cells) {
+            buf.append(',');
+            if (cell != null) {
+                buf.append(cell);
+            }
+        }
+        buf.append(',').append(resets[0]);
+        out.println(buf);
+    }
+
+    private void writeJsonDelta(String time, long driftMillis, Map<String, Object> values, long nanos)
+        throws IOException {
+        jsonWriter.beginDocument();
+        jsonWriter.writeEntity("time", time, null, null);
+        jsonWriter.writeEntity("drift", driftMillis, null, null);
+        int[] resets = { 0 };
+        updateCounters(values, nanos, (path, status) -> {
+            if (status == CounterStore.Status.FIRST) {
+                return;
+            }
+            if (status == CounterStore.Status.RESET) {
+                resets[0]++;
+            }
+            jsonWriter.writeEntity(path, lastDelta(), null, null);
+            jsonWriter.writeEntity(path + "/s", lastRate(), null, null);
+        });
+        jsonWriter.writeEntity("resets", resets[0], null, null);
+        jsonWriter.endDocument();
+    }
+
+    private boolean sample() throws Exception {
+        // The baseline sample of delta is not printed, so it is not counted.
+        long total = delta ? count + 1 : count;
+        if (count > 0 && sampled >= total) {
+            return false;
+        }
+        long scheduledNanos = startNanos + sampled * intervalNanos;
+        long driftMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledNanos);
+        String time = OffsetDateTime.now().truncatedTo(ChronoUnit.MILLIS).format(TIME_FORMAT);
+        Map<String, Object> values = client.getAttributeValues(objectName, attrNames);
+        long nanos = System.nanoTime();
+        if (delta) {
+            if (sampled == 0) {
+                if (format == Format.CSV) {
+                    writeCsvHeader(values, nanos);
+                } else {
+                    updateCounters(values, nanos, (path, status) -> {
+                    });
+                }
+            } else if (format == Format.CSV) {
+                writeCsvDelta(time, driftMillis, values, nanos);
+            } else {
+                writeJsonDelta(time, driftMillis, values, nanos);
+            }
+        } else if (format == Format.CSV) {
+            writeCsv(time, driftMillis, values);
+        } else {
+            writeJson(time, driftMillis, values);
+        }
+        ++sampled;
+        return count <= 0 || sampled < total;
+    }
+
+    /**
+     * Sample attributes until the number of samples reaches the count or the thread is interrupted.
+     *
+     * @throws InterruptedException interrupted.
+     */
+    public void run() throws InterruptedException {
+        init();
+        CountDownLatch done = new CountDownLatch(1);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "watch-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            startNanos = System.nanoTime();
+            scheduler.scheduleAtFixedRate(() -> {
+                try {
+                    if (!sample()) {
+                        done.countDown();
+                    }
+                } catch (Exception e) {
+                    error(String.format("[%s] %s", e.getClass().getCanonicalName(), e.getMessage()));
+                    done.countDown();
+                }
+            }, 0, intervalNanos, TimeUnit.NANOSECONDS);
+            done.await();
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+}
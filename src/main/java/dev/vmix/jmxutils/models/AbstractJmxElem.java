@@ -15,8 +15,8 @@ public abstract class AbstractJmxElem<T> implements JmxElem<T> {
     public AbstractJmxElem(String name, T value, String valueTypeName, String description) {
         this.name = name;
         this.value = value;
-        this.valueTypeName = valueTypeName;
-        this.description = description;
+        this.valueTypeName = JmxSymbols.intern(valueTypeName);
+        this.description = JmxSymbols.intern(description);
     }
 
     @Override
@@ -0,0 +1,184 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils.models;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+import dev.vmix.jmxutils.models.JmxElem.ElemType;
+
+/**
+ * Cursor which traverses the descendants of an element in depth-first order.
+ * <p>
+ * The traversal uses an explicit stack instead of recursion, and shares one mutable {@link JmxPath}, so deep trees
+ * neither overflow the call stack nor allocate a key array per level. Each step yields one of the following events:
+ * </p>
+ * <ul>
+ * <li>{@link Event#ENTITY} - an entity.
+ * <li>{@link Event#ENTER} - a list or map, before its children.
+ * <li>{@link Event#EXIT} - a list or map, after its children.
+ * </ul>
+ *
+ * <pre>
+ * JmxCursor cursor = new JmxCursor(map);
+ * while (cursor.next()) {
+ *     switch (cursor.getEvent()) {
+ *     ...
+ *     }
+ * }
+ * </pre>
+ */
+public final class JmxCursor {
+
+    /**
+     * Traversal event.
+     */
+    public enum Event {
+        ENTITY, ENTER, EXIT
+    }
+
+    private static final class Frame {
+
+        private final JmxElem<?> elem;
+        private final Iterator<? extends JmxElem<?>> children;
+        private final ElemType parentElemType;
+        private final boolean isFirst;
+        private final boolean isLast;
+        private boolean firstChild = true;
+
+        private Frame(JmxElem<?> elem, ElemType parentElemType, boolean isFirst, boolean isLast) {
+            this.elem = elem;
+            this.children = elem.children();
+            this.parentElemType = parentElemType;
+            this.isFirst = isFirst;
+            this.isLast = isLast;
+        }
+    }
+
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private final JmxPath path = new JmxPath();
+    private Event event = null;
+    private JmxElem<?> elem = null;
+    private ElemType parentElemType = null;
+    private boolean isFirst = false;
+    private boolean isLast = false;
+    private boolean skip = false;
+
+    /**
+     * Constructor.
+     *
+     * @param root root element. (the root itself is not yielded)
+     */
+    public JmxCursor(JmxElem<?> root) {
+        stack.push(new Frame(root, null, true, true));
+    }
+
+    /**
+     * Move to the next event.
+     *
+     * @return false if the traversal is finished.
+     */
+    public boolean next() {
+        if (event == Event.ENTER) {
+            if (skip) {
+                skip = false;
+                event = Event.EXIT;
+                return true;
+            }
+            stack.push(new Frame(elem, parentElemType, isFirst, isLast));
+        }
+        Frame frame = stack.peek();
+        if (frame == null) {
+            return false;
+        }
+        if (frame.children.hasNext()) {
+            elem = frame.children.next();
+            parentElemType = frame.elem.getElemType();
+            isFirst = frame.firstChild;
+            isLast = !frame.children.hasNext();
+            frame.firstChild = false;
+            path.truncate(stack.size() - 1);
+            path.push(elem.getName());
+            event = elem.getElemType() == ElemType.ENTITY ? Event.ENTITY : Event.ENTER;
+            return true;
+        }
+        stack.pop();
+        if (stack.isEmpty()) {
+            path.truncate(0);
+            event = null;
+            elem = null;
+            return false;
+        }
+        elem = frame.elem;
+        parentElemType = frame.parentElemType;
+        isFirst = frame.isFirst;
+        isLast = frame.isLast;
+        path.truncate(stack.size());
+        event = Event.EXIT;
+        return true;
+    }
+
+    /**
+     * Skip the children of the current list or map. The next event is EXIT of it.
+     */
+    public void skipChildren() {
+        if (event != Event.ENTER) {
+            throw new IllegalStateException("Current event is not ENTER: " + event);
+        }
+        skip = true;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public JmxElem<?> getElem() {
+        return elem;
+    }
+
+    /**
+     * Get path to the current element. (shared and updated by {@link #next()})
+     *
+     * @return path.
+     */
+    public JmxPath getPath() {
+        return path;
+    }
+
+    public ElemType getParentElemType() {
+        return parentElemType;
+    }
+
+    public boolean isFirst() {
+        return isFirst;
+    }
+
+    public boolean isLast() {
+        return isLast;
+    }
+
+    /**
+     * Drive the visitor until the traversal is finished.
+     *
+     * @param visitor visitor.
+     */
+    public void accept(JmxVisitor visitor) {
+        while (next()) {
+            switch (event) {
+            case ENTITY:
+                visitor.visit(elem, path, parentElemType, isFirst, isLast);
+                break;
+            case ENTER:
+                if (!visitor.enter(elem, path, parentElemType, isFirst, isLast)) {
+                    skipChildren();
+                }
+                break;
+            case EXIT:
+                visitor.exit(elem, path, parentElemType, isFirst, isLast);
+                break;
+            }
+        }
+    }
+}
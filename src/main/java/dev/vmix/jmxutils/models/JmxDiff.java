@@ -0,0 +1,205 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils.models;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.vmix.jmxutils.models.JmxElem.ElemType;
+
+/**
+ * Difference of two element trees.
+ * <p>
+ * The trees are walked in lockstep from the top, and entities are compared by value. Children of maps are matched by
+ * key in their order, and children of lists by index.
+ * </p>
+ *
+ * <pre>
+ * JmxDiff.diff(oldMap, newMap, listener);
+ * </pre>
+ */
+public final class JmxDiff {
+
+    /**
+     * Receiver of differences.
+     * <p>
+     * The path is shared and updated during the comparison. See {@link JmxPath}.
+     * </p>
+     */
+    public interface Listener {
+
+        /**
+         * Element is added.
+         *
+         * @param path path of the element.
+         * @param newElem new element.
+         */
+        void added(JmxPath path, JmxElem<?> newElem);
+
+        /**
+         * Element is removed.
+         *
+         * @param path path of the element.
+         * @param oldElem old element.
+         */
+        void removed(JmxPath path, JmxElem<?> oldElem);
+
+        /**
+         * Entity is changed, or element is replaced by another type of element.
+         *
+         * @param path path of the element.
+         * @param oldElem old element.
+         * @param newElem new element.
+         */
+        void changed(JmxPath path, JmxElem<?> oldElem, JmxElem<?> newElem);
+    }
+
+    private final Listener listener;
+    private final JmxPath path = new JmxPath();
+
+    private JmxDiff(Listener listener) {
+        this.listener = listener;
+    }
+
+    private static int valueKind(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+            || value instanceof Byte) {
+            return 1;
+        } else if (value instanceof Double || value instanceof Float) {
+            return 2;
+        } else if (value instanceof Boolean) {
+            return 3;
+        } else {
+            return 4;
+        }
+    }
+
+    /**
+     * Check whether two values are the same. Numbers and strings are different even if they look the same.
+     */
+    private static boolean sameValue(Object oldValue, Object newValue) {
+        int kind = valueKind(oldValue);
+        if (kind != valueKind(newValue)) {
+            return false;
+        }
+        switch (kind) {
+        case 0:
+            return true;
+        case 1:
+            return ((Number) oldValue).longValue() == ((Number) newValue).longValue();
+        case 2:
+            return Double.doubleToLongBits(((Number) oldValue).doubleValue())
+                == Double.doubleToLongBits(((Number) newValue).doubleValue());
+        case 3:
+            return oldValue.equals(newValue);
+        default:
+            return oldValue.toString().equals(newValue.toString());
+        }
+    }
+
+    private static List<JmxElem<?>> children(JmxElem<?> elem) {
+        List<JmxElem<?>> children = new ArrayList<>();
+        for (Iterator<? extends JmxElem<?>> iter = elem.children(); iter.hasNext();) {
+            children.add(iter.next());
+        }
+        return children;
+    }
+
+    /**
+     * Compare two trees, and pass the differences to the listener.
+     * <p>
+     * The roots themselves are compared as containers, and their names are ignored.
+     * </p>
+     *
+     * @param oldElem old tree.
+     * @param newElem new tree.
+     * @param listener receiver of differences.
+     */
+    public static void diff(JmxElem<?> oldElem, JmxElem<?> newElem, Listener listener) {
+        new JmxDiff(listener).compare(oldElem, newElem);
+    }
+
+    private void compare(JmxElem<?> oldElem, JmxElem<?> newElem) {
+        ElemType elemType = oldElem.getElemType();
+        if (elemType != newElem.getElemType()) {
+            listener.changed(path, oldElem, newElem);
+        } else if (elemType == ElemType.ENTITY) {
+            if (!sameValue(oldElem.getValue(), newElem.getValue())) {
+                listener.changed(path, oldElem, newElem);
+            }
+        } else if (elemType == ElemType.MAP) {
+            compareMaps(children(oldElem), children(newElem));
+        } else {
+            compareLists(children(oldElem), children(newElem));
+        }
+    }
+
+    private void compareChild(JmxElem<?> oldChild, JmxElem<?> newChild) {
+        int size = path.size();
+        path.push(newChild.getName());
+        compare(oldChild, newChild);
+        path.truncate(size);
+    }
+
+    private void report(JmxElem<?> child, boolean added) {
+        int size = path.size();
+        path.push(child.getName());
+        if (added) {
+            listener.added(path, child);
+        } else {
+            listener.removed(path, child);
+        }
+        path.truncate(size);
+    }
+
+    private void compareMaps(List<JmxElem<?>> oldChildren, List<JmxElem<?>> newChildren) {
+        // Keys usually appear in the same order, so they are matched by position until they differ.
+        int common = Math.min(oldChildren.size(), newChildren.size());
+        int i = 0;
+        for (; i < common; i++) {
+            JmxElem<?> oldChild = oldChildren.get(i);
+            JmxElem<?> newChild = newChildren.get(i);
+            if (!oldChild.getName().equals(newChild.getName())) {
+                break;
+            }
+            compareChild(oldChild, newChild);
+        }
+        if (i == oldChildren.size() && i == newChildren.size()) {
+            return;
+        }
+        Map<String, JmxElem<?>> rest = new LinkedHashMap<>();
+        for (JmxElem<?> newChild : newChildren.subList(i, newChildren.size())) {
+            rest.put(newChild.getName(), newChild);
+        }
+        for (JmxElem<?> oldChild : oldChildren.subList(i, oldChildren.size())) {
+            JmxElem<?> newChild = rest.remove(oldChild.getName());
+            if (newChild != null) {
+                compareChild(oldChild, newChild);
+            } else {
+                report(oldChild, false);
+            }
+        }
+        for (JmxElem<?> newChild : rest.values()) {
+            report(newChild, true);
+        }
+    }
+
+    private void compareLists(List<JmxElem<?>> oldChildren, List<JmxElem<?>> newChildren) {
+        int common = Math.min(oldChildren.size(), newChildren.size());
+        for (int i = 0; i < common; i++) {
+            compareChild(oldChildren.get(i), newChildren.get(i));
+        }
+        for (JmxElem<?> oldChild : oldChildren.subList(common, oldChildren.size())) {
+            report(oldChild, false);
+        }
+        for (JmxElem<?> newChild : newChildren.subList(common, newChildren.size())) {
+            report(newChild, true);
+        }
+    }
+}
@@ -4,6 +4,8 @@
 package dev.vmix.jmxutils.models;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 
 public interface JmxElem<T> {
 
@@ -11,6 +13,12 @@ public interface JmxElem<T> {
         ENTITY, LIST, MAP
     }
 
+    /**
+     * Recursive callback of {@link JmxElem#walk(Walker, String...)}.
+     * <p>
+     * This is kept as an adapter over {@link #children()}. Use {@link JmxCursor} or {@link JmxVisitor} for new code.
+     * </p>
+     */
     @FunctionalInterface
     public interface Walker {
 
@@ -27,7 +35,39 @@ public interface JmxElem<T> {
 
     String getDescription();
 
-    boolean walk(Walker walker, String... parentKeys);
+    /**
+     * Get iterator of children.
+     * <p>
+     * Children may be created on demand, so they should not be retained beyond the iteration.
+     * </p>
+     *
+     * @return iterator of children. (empty for entity)
+     */
+    default Iterator<? extends JmxElem<?>> children() {
+        return Collections.emptyIterator();
+    }
+
+    /**
+     * Traverse descendants by visitor.
+     *
+     * @param visitor visitor.
+     */
+    default void accept(JmxVisitor visitor) {
+        new JmxCursor(this).accept(visitor);
+    }
+
+    default boolean walk(Walker walker, String... parentKeys) {
+        ElemType elemType = getElemType();
+        boolean isFirst = true;
+        for (Iterator<? extends JmxElem<?>> iter = children(); iter.hasNext();) {
+            JmxElem<?> child = iter.next();
+            if (!walker.callback(walker, child, isFirst, !iter.hasNext(), elemType, parentKeys)) {
+                return false;
+            }
+            isFirst = false;
+        }
+        return true;
+    }
 
     default boolean walk(Walker walker, String[] parentKeys, String currentKey) {
         int len = parentKeys.length;
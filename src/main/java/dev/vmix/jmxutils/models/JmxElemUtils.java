@@ -10,17 +10,33 @@ import java.util.Set;
 import javax.management.openmbean.CompositeData;
 import javax.management.openmbean.CompositeType;
 import javax.management.openmbean.OpenType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularType;
 
 public final class JmxElemUtils {
 
     private JmxElemUtils() {
     }
 
+    /**
+     * Get description, or null if it has no more information than the name or the type name.
+     */
+    static String effectiveDescription(String description, String name, String typeName) {
+        if (description != null && (description.equals(name) || description.equals(typeName))) {
+            return null;
+        }
+        return description;
+    }
+
     public static JmxMap newEmptyMap(String name, String valueTypeName, String description) {
         return new JmxMap(name, valueTypeName, description);
     }
 
-    private static boolean hasKeyValuePairOnly(CompositeType cType) {
+    public static JmxList newEmptyList(String name, String valueTypeName, String description) {
+        return new JmxList(name, valueTypeName, description);
+    }
+
+    public static boolean hasKeyValuePairOnly(CompositeType cType) {
         String typeName = cType.getTypeName();
         Set<String> keySet = cType.keySet();
         return typeName.startsWith("Map<java.lang.String,")
@@ -34,12 +50,22 @@ public final class JmxElemUtils {
             return new JmxEntity<>(name, null, valueTypeName, description);
         }
         if (valueTypeName == null) {
-            valueTypeName = value.getClass().getCanonicalName();
+            valueTypeName = JmxSymbols.typeName(value.getClass());
         }
-        if (value instanceof Map) {
+        if (value instanceof TabularData) {
+            // TabularDataSupport is also a Map, so this must be checked first.
+            TabularData table = (TabularData) value;
+            if (description == null) {
+                TabularType tType = table.getTabularType();
+                description = effectiveDescription(tType.getDescription(), name, tType.getTypeName());
+            }
+            return new JmxTable(name, table, valueTypeName, description);
+        } else if (value instanceof Map) {
             return new JmxMap(name, (Map<?, ?>) value, valueTypeName, description);
         } else if (value instanceof List) {
             return new JmxList(name, (List<?>) value, valueTypeName, description);
+        } else if (value.getClass().isArray() && value.getClass().getComponentType().isPrimitive()) {
+            return new JmxPrimitiveList(name, value, valueTypeName, description);
         } else if (value instanceof Object[]) {
             JmxList list = new JmxList(name, valueTypeName, description);
             for (Object item : (Object[]) value) {
@@ -49,19 +75,13 @@ public final class JmxElemUtils {
         } else if (value instanceof CompositeData) {
             CompositeData cData = (CompositeData) value;
             CompositeType cType = cData.getCompositeType();
-            String cDesc = cType.getDescription();
-            if (cDesc != null && (cDesc.equals(name) || cDesc.equals(cType.getTypeName()))) {
-                cDesc = null;
-            }
+            String cDesc = effectiveDescription(cType.getDescription(), name, cType.getTypeName());
             if (hasKeyValuePairOnly(cType)) {
                 String key = (String) cData.get("key");
                 Object iValue = cData.get("value");
                 OpenType<?> iType = cType.getType("value");
                 String iTypeName = iType.getTypeName();
-                String iDescription = iType.getDescription();
-                if (iDescription != null && (iDescription.equals(key) || iDescription.equals(iTypeName))) {
-                    iDescription = null;
-                }
+                String iDescription = effectiveDescription(iType.getDescription(), key, iTypeName);
                 return wrap(key, iValue, iTypeName, iDescription);
             } else {
                 JmxMap map = new JmxMap(name, cType.getTypeName(), cDesc);
@@ -69,10 +89,7 @@ public final class JmxElemUtils {
                     Object iValue = cData.get(key);
                     OpenType<?> iType = cType.getType(key);
                     String iTypeName = iType.getTypeName();
-                    String iDescription = iType.getDescription();
-                    if (iDescription != null && (iDescription.equals(key) || iDescription.equals(iTypeName))) {
-                        iDescription = null;
-                    }
+                    String iDescription = effectiveDescription(iType.getDescription(), key, iTypeName);
                     map.put(key, iValue, iTypeName, iDescription);
                 });
                 return map;
@@ -4,6 +4,7 @@
 package dev.vmix.jmxutils.models;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 public class JmxList extends AbstractJmxElem<List<JmxElem<?>>> {
@@ -28,16 +29,17 @@ public class JmxList extends AbstractJmxElem<List<JmxElem<?>>> {
         value.add(elem);
     }
 
+    /**
+     * Add element. (its name should be the index)
+     *
+     * @param elem element.
+     */
+    public void addElem(JmxElem<?> elem) {
+        value.add(elem);
+    }
+
     @Override
-    public boolean walk(Walker walker, String... parentKeys) {
-        int index = -1;
-        int lastIndex = value.size() - 1;
-        for (JmxElem<?> item : value) {
-            ++index;
-            if (!walker.callback(walker, item, index == 0, index == lastIndex, getElemType(), parentKeys)) {
-                return false;
-            }
-        }
-        return true;
+    public Iterator<JmxElem<?>> children() {
+        return value.iterator();
     }
 }
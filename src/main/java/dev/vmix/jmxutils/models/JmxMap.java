@@ -3,9 +3,9 @@
  */
 package dev.vmix.jmxutils.models;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 
 public class JmxMap extends AbstractJmxElem<Map<String, JmxElem<?>>> {
 
@@ -32,16 +32,17 @@ public class JmxMap extends AbstractJmxElem<Map<String, JmxElem<?>>> {
         this.value.put(key, elem);
     }
 
+    /**
+     * Put element keyed by its name.
+     *
+     * @param elem element.
+     */
+    public void putElem(JmxElem<?> elem) {
+        value.put(elem.getName(), elem);
+    }
+
     @Override
-    public boolean walk(Walker walker, String... parentKeys) {
-        int index = -1;
-        int lastIndex = value.size() - 1;
-        for (Entry<String, JmxElem<?>> entry : value.entrySet()) {
-            ++index;
-            if (!walker.callback(walker, entry.getValue(), index == 0, index == lastIndex, getElemType(), parentKeys)) {
-                return false;
-            }
-        }
-        return true;
+    public Iterator<JmxElem<?>> children() {
+        return value.values().iterator();
     }
 }
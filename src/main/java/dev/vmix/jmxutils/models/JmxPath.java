@@ -0,0 +1,80 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils.models;
+
+import java.util.Arrays;
+
+/**
+ * Mutable path of element names from the root of traversal.
+ * <p>
+ * One instance is shared and updated during a traversal. Copy it by {@link #toArray()} or {@link #toString()} if
+ * it is needed after the callback returns.
+ * </p>
+ */
+public final class JmxPath {
+
+    private String[] keys = new String[16];
+    private int size = 0;
+
+    JmxPath() {
+    }
+
+    void truncate(int newSize) {
+        Arrays.fill(keys, newSize, size, null);
+        size = newSize;
+    }
+
+    void push(String key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size++] = key;
+    }
+
+    /**
+     * Get the depth of path.
+     *
+     * @return the number of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get key.
+     *
+     * @param index index. (0 is the top level)
+     * @return key.
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return keys[index];
+    }
+
+    /**
+     * Get keys as a new array.
+     *
+     * @return keys.
+     */
+    public String[] toArray() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * Get keys joined with ".".
+     */
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buf.append('.');
+            }
+            buf.append(keys[i]);
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils.models;
+
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * List element backed by a primitive array.
+ * <p>
+ * The array is kept as is, and an element is created only when it is visited, so items are never
+ * boxed and retained. {@link #appendElement(int, StringBuilder)} renders an item without boxing.
+ * </p>
+ */
+public class JmxPrimitiveList extends AbstractJmxElem<Object> {
+
+    private final Class<?> componentType;
+    private final String itemTypeName;
+    private final int size;
+
+    JmxPrimitiveList(String name, Object array, String valueTypeName, String description) {
+        super(name, array, valueTypeName, description);
+        this.componentType = array.getClass().getComponentType();
+        if (!componentType.isPrimitive()) {
+            throw new IllegalArgumentException("Not a primitive array: " + array.getClass().getName());
+        }
+        this.itemTypeName = componentType.getName();
+        this.size = Array.getLength(array);
+    }
+
+    @Override
+    public ElemType getElemType() {
+        return ElemType.LIST;
+    }
+
+    /**
+     * Get the component type of the array.
+     *
+     * @return primitive type.
+     */
+    public Class<?> getComponentType() {
+        return componentType;
+    }
+
+    /**
+     * Get the number of items.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get item. (boxed)
+     *
+     * @param index index.
+     * @return item.
+     */
+    public Object getItem(int index) {
+        return Array.get(value, index);
+    }
+
+    /**
+     * Append string representation of item to the buffer without boxing.
+     * <p>
+     * The representation is the same as toString() of the boxed item. (char is appended as is)
+     * </p>
+     *
+     * @param index index.
+     * @param buf output buffer.
+     * @return buf.
+     */
+    public StringBuilder appendElement(int index, StringBuilder buf) {
+        if (componentType == long.class) {
+            return buf.append(((long[]) value)[index]);
+        } else if (componentType == int.class) {
+            return buf.append(((int[]) value)[index]);
+        } else if (componentType == double.class) {
+            return buf.append(((double[]) value)[index]);
+        } else if (componentType == byte.class) {
+            return buf.append(((byte[]) value)[index]);
+        } else if (componentType == short.class) {
+            return buf.append(((short[]) value)[index]);
+        } else if (componentType == float.class) {
+            return buf.append(((float[]) value)[index]);
+        } else if (componentType == boolean.class) {
+            return buf.append(((boolean[]) value)[index]);
+        } else {
+            return buf.append(((char[]) value)[index]);
+        }
+    }
+
+    @Override
+    public Iterator<JmxElem<?>> children() {
+        return new Iterator<JmxElem<?>>() {
+
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public JmxElem<?> next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                int i = index++;
+                return new JmxEntity<>(Integer.toString(i), getItem(i), itemTypeName, null);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append('[').append(name).append(" = ").append(itemTypeName).append('[').append(size).append(']');
+        if (valueTypeName != null) {
+            buf.append(": ").append(valueTypeName);
+        }
+        buf.append(']');
+        return buf.toString();
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils.models;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Selection of sub-paths of attribute values such as "HeapMemoryUsage.used".
+ * <p>
+ * Only the selected sub-paths are wrapped into elements. Children of CompositeData, TabularData, maps, lists and
+ * arrays are looked up on the raw value, so unselected children are never converted. (a row of TabularData is
+ * looked up by its key) A selected path which does not exist is wrapped as null.
+ * </p>
+ * <p>
+ * Keys may contain '.' such as "java.version" of "SystemProperties". So the segments of a sub-path are resolved
+ * against the actual keys at each level, and the longest key which exists is selected. (e.g.
+ * "SystemProperties.java.version" selects the key "java.version")
+ * </p>
+ */
+public final class JmxProjection {
+
+    // remaining sub-paths split at '.'. an empty one means the whole value.
+    private final List<String[]> paths = new ArrayList<>();
+
+    private JmxProjection() {
+    }
+
+    /**
+     * Parse selectors.
+     *
+     * @param selectors selectors written as "ATTR[.KEY...]".
+     * @return map of attribute name and its projection, in order of first appearance.
+     */
+    public static Map<String, JmxProjection> parse(List<String> selectors) {
+        Map<String, JmxProjection> projections = new LinkedHashMap<>();
+        for (String selector : selectors) {
+            String[] keys = selector.split("\\.", -1);
+            for (String key : keys) {
+                if (key.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid attribute path: " + selector);
+                }
+            }
+            projections.computeIfAbsent(keys[0], k -> new JmxProjection()).add(Arrays.copyOfRange(keys, 1,
+                keys.length));
+        }
+        return projections;
+    }
+
+    private void add(String[] path) {
+        paths.add(path);
+    }
+
+    /**
+     * Check whether the whole value is selected.
+     *
+     * @return true if the whole value is selected.
+     */
+    public boolean isWhole() {
+        for (String[] path : paths) {
+            if (path.length == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Child found by key, which is wrapped by its projection.
+     */
+    private interface Child {
+        JmxElem<?> wrap(JmxProjection projection);
+    }
+
+    /**
+     * Wrap the selected children into map. The first segments of sub-paths are resolved to keys, and each key is
+     * looked up once.
+     *
+     * @param map empty map.
+     * @param lookup find child by key. (null if not found)
+     * @return map.
+     */
+    private JmxMap project(JmxMap map, Function<String, Child> lookup) {
+        Map<String, Child> found = new HashMap<>();
+        Predicate<String> hasKey = key -> {
+            if (found.containsKey(key)) {
+                return true;
+            }
+            Child child = lookup.apply(key);
+            if (child != null) {
+                found.put(key, child);
+            }
+            return child != null;
+        };
+        Map<String, JmxProjection> children = new LinkedHashMap<>();
+        for (String[] path : paths) {
+            // the longest key which exists, or the first segment if none.
+            int length = path.length;
+            while (length > 1 && !hasKey.test(String.join(".", Arrays.asList(path).subList(0, length)))) {
+                length--;
+            }
+            String key = String.join(".", Arrays.asList(path).subList(0, length));
+            if (length == 1) {
+                hasKey.test(key);
+            }
+            children.computeIfAbsent(key, k -> new JmxProjection()).add(Arrays.copyOfRange(path, length,
+                path.length));
+        }
+        children.forEach((key, projection) -> {
+            Child child = found.get(key);
+            map.putElem(child != null ? child.wrap(projection) : JmxElemUtils.wrap(key, null, null, null));
+        });
+        return map;
+    }
+
+    /**
+     * Wrap the selected sub-paths of value.
+     *
+     * @param name name.
+     * @param value value.
+     * @param valueTypeName type name of value.
+     * @param description description.
+     * @return element.
+     */
+    public JmxElem<?> wrap(String name, Object value, String valueTypeName, String description) {
+        if (isWhole()) {
+            return JmxElemUtils.wrap(name, value, valueTypeName, description);
+        }
+        if (value instanceof CompositeData) {
+            CompositeData cData = (CompositeData) value;
+            CompositeType cType = cData.getCompositeType();
+            if (JmxElemUtils.hasKeyValuePairOnly(cType)) {
+                // wrapped as its value, same as JmxElemUtils.wrap()
+                String key = (String) cData.get("key");
+                OpenType<?> iType = cType.getType("value");
+                String iTypeName = iType.getTypeName();
+                return wrap(key, cData.get("value"), iTypeName,
+                    JmxElemUtils.effectiveDescription(iType.getDescription(), key, iTypeName));
+            }
+            String cDesc = JmxElemUtils.effectiveDescription(cType.getDescription(), name, cType.getTypeName());
+            return project(JmxElemUtils.newEmptyMap(name, cType.getTypeName(), cDesc), key -> {
+                if (!cType.containsKey(key)) {
+                    return null;
+                }
+                OpenType<?> iType = cType.getType(key);
+                String iTypeName = iType.getTypeName();
+                String iDescription = JmxElemUtils.effectiveDescription(iType.getDescription(), key, iTypeName);
+                return child -> child.wrap(key, cData.get(key), iTypeName, iDescription);
+            });
+        }
+        if (value == null) {
+            return project(JmxElemUtils.newEmptyMap(name, null, description), key -> null);
+        }
+        String typeName = valueTypeName != null ? valueTypeName : JmxSymbols.typeName(value.getClass());
+        if (value instanceof TabularData) {
+            TabularData table = (TabularData) value;
+            TabularType tType = table.getTabularType();
+            String tDesc = description != null ? description
+                : JmxElemUtils.effectiveDescription(tType.getDescription(), name, tType.getTypeName());
+            boolean keyValueOnly = JmxTable.isKeyValueOnly(tType);
+            return project(JmxElemUtils.newEmptyMap(name, typeName, tDesc), key -> {
+                CompositeData row = JmxTable.findRow(table, key);
+                if (row == null) {
+                    return null;
+                }
+                CompositeType rowType = row.getCompositeType();
+                if (!keyValueOnly) {
+                    return child -> child.wrap(key, row, rowType.getTypeName(), null);
+                }
+                OpenType<?> iType = rowType.getType("value");
+                String iDescription = JmxElemUtils.effectiveDescription(iType.getDescription(), key,
+                    iType.getTypeName());
+                return child -> child.wrap(key, row.get("value"), iType.getTypeName(), iDescription);
+            });
+        }
+        if (value instanceof Map) {
+            Map<?, ?> valueMap = (Map<?, ?>) value;
+            return project(JmxElemUtils.newEmptyMap(name, typeName, description), key -> {
+                for (Map.Entry<?, ?> entry : valueMap.entrySet()) {
+                    if (entry.getKey().toString().equals(key)) {
+                        return child -> child.wrap(key, entry.getValue(), null, null);
+                    }
+                }
+                return null;
+            });
+        }
+        if (value instanceof List || value.getClass().isArray()) {
+            // The projection of a list is a map keyed by the selected indexes.
+            int size = value instanceof List ? ((List<?>) value).size() : Array.getLength(value);
+            return project(JmxElemUtils.newEmptyMap(name, typeName, description), key -> {
+                int index = parseIndex(key, size);
+                if (index < 0) {
+                    return null;
+                }
+                Object item = value instanceof List ? ((List<?>) value).get(index) : Array.get(value, index);
+                return child -> child.wrap(key, item, null, null);
+            });
+        }
+        return project(JmxElemUtils.newEmptyMap(name, null, description), key -> null);
+    }
+
+    private static int parseIndex(String key, int size) {
+        if (!key.matches("\\d{1,9}")) {
+            return -1;
+        }
+        int index = Integer.parseInt(key);
+        return index < size ? index : -1;
+    }
+}
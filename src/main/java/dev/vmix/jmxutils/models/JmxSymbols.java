@@ -0,0 +1,69 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils.models;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared symbol table of type names and descriptions referenced by elements.
+ * <p>
+ * Type names and descriptions are repeated in every element of the same type, and OpenTypes deserialized by each
+ * remote call carry their own copies. Elements replace them by one canonical instance here, so a large tree retains
+ * each of them only once. Canonical names of classes are computed once per class.
+ * </p>
+ * <p>
+ * The table stops growing at {@link #MAX_SYMBOLS}, and further strings are used as they are.
+ * </p>
+ */
+final class JmxSymbols {
+
+    static final int MAX_SYMBOLS = 65536;
+
+    private static final ConcurrentMap<String, String> SYMBOLS = new ConcurrentHashMap<>();
+
+    private static final ClassValue<String> CANONICAL_NAMES = new ClassValue<String>() {
+
+        @Override
+        protected String computeValue(Class<?> type) {
+            String name = type.getCanonicalName();
+            // Local and anonymous classes have no canonical name.
+            return intern(name != null ? name : type.getName());
+        }
+    };
+
+    private JmxSymbols() {
+    }
+
+    /**
+     * Get canonical instance of string.
+     *
+     * @param str string. (nullable)
+     * @return canonical instance, or str itself if the table is full.
+     */
+    static String intern(String str) {
+        if (str == null) {
+            return null;
+        }
+        String symbol = SYMBOLS.get(str);
+        if (symbol != null) {
+            return symbol;
+        }
+        if (SYMBOLS.size() >= MAX_SYMBOLS) {
+            return str;
+        }
+        symbol = SYMBOLS.putIfAbsent(str, str);
+        return symbol != null ? symbol : str;
+    }
+
+    /**
+     * Get canonical name of class.
+     *
+     * @param type class.
+     * @return canonical name. (interned)
+     */
+    static String typeName(Class<?> type) {
+        return CANONICAL_NAMES.get(type);
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Map element backed by TabularData.
+ * <p>
+ * Rows are keyed by the values of the index columns, and sorted by the key. A row with multiple index columns is
+ * keyed as "[VALUE1, VALUE2, ...]", where ',' and '\' in the values are escaped by '\'. A row is converted to an
+ * element only when it is visited, and is not retained. {@link #limitRows(int)} makes a view of the first rows, where
+ * the rest are omitted and an entry named "..." tells the number of omitted rows. (more dots are added if a row has
+ * the same key)
+ * </p>
+ */
+public class JmxTable extends JmxMap {
+
+    static final String OMITTED_KEY = "...";
+
+    private final TabularData table;
+    private final List<String> keys;
+    private final List<CompositeData> rows;
+    private final boolean keyValueOnly;
+    private final int omitted;
+    private final String omittedKey;
+    private boolean expanded = false;
+
+    JmxTable(String name, TabularData table, String valueTypeName, String description) {
+        super(name, valueTypeName, description);
+        this.table = table;
+        TabularType tType = table.getTabularType();
+        List<String> indexNames = tType.getIndexNames();
+        this.keyValueOnly = isKeyValueOnly(tType);
+        List<Object[]> entries = new ArrayList<>(table.size());
+        for (Object row : table.values()) {
+            CompositeData cData = (CompositeData) row;
+            entries.add(new Object[] { rowKey(cData, indexNames), cData });
+        }
+        entries.sort(Comparator.comparing(entry -> (String) entry[0]));
+        this.keys = new ArrayList<>(entries.size());
+        this.rows = new ArrayList<>(entries.size());
+        for (Object[] entry : entries) {
+            keys.add((String) entry[0]);
+            rows.add((CompositeData) entry[1]);
+        }
+        this.omitted = 0;
+        this.omittedKey = OMITTED_KEY;
+    }
+
+    private JmxTable(JmxTable source, int rowLimit) {
+        super(source.getName(), source.getValueTypeName(), source.getDescription());
+        this.table = source.table;
+        this.keyValueOnly = source.keyValueOnly;
+        this.keys = source.keys.subList(0, rowLimit);
+        this.rows = source.rows.subList(0, rowLimit);
+        this.omitted = source.omitted + source.keys.size() - rowLimit;
+        String key = OMITTED_KEY;
+        while (Collections.binarySearch(keys, key) >= 0) {
+            key += ".";
+        }
+        this.omittedKey = key;
+    }
+
+    /**
+     * Check whether rows are pairs of "key" and "value", where a row is represented by the value.
+     *
+     * @param tType type of table.
+     * @return true if rows are pairs of "key" and "value".
+     */
+    public static boolean isKeyValueOnly(TabularType tType) {
+        Set<String> columns = tType.getRowType().keySet();
+        return tType.getIndexNames().equals(Arrays.asList("key")) && columns.size() == 2 && columns.contains("value");
+    }
+
+    /**
+     * Find row by its key without converting rows.
+     *
+     * @param table table.
+     * @param key key of row.
+     * @return row, or null if not found.
+     */
+    static CompositeData findRow(TabularData table, String key) {
+        TabularType tType = table.getTabularType();
+        List<String> indexNames = tType.getIndexNames();
+        if (indexNames.size() == 1 && tType.getRowType().getType(indexNames.get(0)) == SimpleType.STRING) {
+            Object[] index = { key };
+            return table.containsKey(index) ? table.get(index) : null;
+        }
+        for (Object row : table.values()) {
+            CompositeData cData = (CompositeData) row;
+            if (rowKey(cData, indexNames).equals(key)) {
+                return cData;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get key of row.
+     *
+     * @param row row.
+     * @param indexNames names of index columns.
+     * @return key of row.
+     */
+    public static String rowKey(CompositeData row, List<String> indexNames) {
+        if (indexNames.size() == 1) {
+            return String.valueOf(row.get(indexNames.get(0)));
+        }
+        StringBuilder buf = new StringBuilder("[");
+        for (String indexName : indexNames) {
+            if (buf.length() > 1) {
+                buf.append(", ");
+            }
+            String value = String.valueOf(row.get(indexName));
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '\\') {
+                    buf.append('\\');
+                }
+                buf.append(c);
+            }
+        }
+        return buf.append(']').toString();
+    }
+
+    /**
+     * Get view of the first rows.
+     *
+     * @param rowLimit the maximum number of rows.
+     * @return view which has at most rowLimit rows and the entry of omitted rows, or this if there are no more rows.
+     */
+    public JmxTable limitRows(int rowLimit) {
+        if (rowLimit < 0) {
+            throw new IllegalArgumentException("Negative row limit: " + rowLimit);
+        }
+        return keys.size() <= rowLimit ? this : new JmxTable(this, rowLimit);
+    }
+
+    /**
+     * Get backing TabularData.
+     *
+     * @return TabularData.
+     */
+    public TabularData getTable() {
+        return table;
+    }
+
+    /**
+     * Get the number of rows omitted by {@link #limitRows(int)}.
+     *
+     * @return the number of omitted rows.
+     */
+    public int getOmittedRows() {
+        return omitted;
+    }
+
+    private JmxElem<?> convert(int index) {
+        String key = keys.get(index);
+        CompositeData row = rows.get(index);
+        CompositeType rowType = row.getCompositeType();
+        if (keyValueOnly) {
+            OpenType<?> iType = rowType.getType("value");
+            String iDescription = JmxElemUtils.effectiveDescription(iType.getDescription(), key, iType.getTypeName());
+            return JmxElemUtils.wrap(key, row.get("value"), iType.getTypeName(), iDescription);
+        } else {
+            return JmxElemUtils.wrap(key, row, rowType.getTypeName(), null);
+        }
+    }
+
+    private JmxElem<?> omittedEntry() {
+        String message = String.format("[omitted] %d more rows", omitted);
+        return new JmxEntity<>(omittedKey, message, JmxSymbols.typeName(String.class), null);
+    }
+
+    private void expand() {
+        if (expanded) {
+            return;
+        }
+        expanded = true;
+        for (int i = 0; i < keys.size(); i++) {
+            value.put(keys.get(i), convert(i));
+        }
+        if (omitted > 0) {
+            value.put(omittedKey, omittedEntry());
+        }
+    }
+
+    @Override
+    public Map<String, JmxElem<?>> getValue() {
+        expand();
+        return super.getValue();
+    }
+
+    @Override
+    public JmxElem<?> get(String key) {
+        expand();
+        return super.get(key);
+    }
+
+    @Override
+    public void put(String key, Object value, String typeName, String description) {
+        expand();
+        super.put(key, value, typeName, description);
+    }
+
+    @Override
+    public void putElem(JmxElem<?> elem) {
+        expand();
+        super.putElem(elem);
+    }
+
+    @Override
+    public Iterator<JmxElem<?>> children() {
+        if (expanded) {
+            return super.children();
+        }
+        int size = keys.size() + (omitted > 0 ? 1 : 0);
+        return new Iterator<JmxElem<?>>() {
+
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public JmxElem<?> next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                int i = index++;
+                return i < keys.size() ? convert(i) : omittedEntry();
+            }
+        };
+    }
+}
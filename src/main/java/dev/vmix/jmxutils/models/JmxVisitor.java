@@ -0,0 +1,52 @@
+/*
+ *
+ */
+package dev.vmix.jmxutils.models;
+
+import dev.vmix.jmxutils.models.JmxElem.ElemType;
+
+/**
+ * Visitor of element tree driven by {@link JmxCursor}.
+ * <p>
+ * The path passed to each method contains the names from the top level down to the element itself.
+ * </p>
+ */
+public interface JmxVisitor {
+
+    /**
+     * Visit entity.
+     *
+     * @param elem entity element.
+     * @param path path to the element.
+     * @param parentElemType type of the parent element.
+     * @param isFirst true if the element is the first one in the parent.
+     * @param isLast true if the element is the last one in the parent.
+     */
+    void visit(JmxElem<?> elem, JmxPath path, ElemType parentElemType, boolean isFirst, boolean isLast);
+
+    /**
+     * Enter list or map.
+     *
+     * @param elem list or map element.
+     * @param path path to the element.
+     * @param parentElemType type of the parent element.
+     * @param isFirst true if the element is the first one in the parent.
+     * @param isLast true if the element is the last one in the parent.
+     * @return true to visit the children, or false to skip them. ({@link #exit} is called in both cases)
+     */
+    default boolean enter(JmxElem<?> elem, JmxPath path, ElemType parentElemType, boolean isFirst, boolean isLast) {
+        return true;
+    }
+
+    /**
+     * Exit list or map.
+     *
+     * @param elem list or map element.
+     * @param path path to the element.
+     * @param parentElemType type of the parent element.
+     * @param isFirst true if the element is the first one in the parent.
+     * @param isLast true if the element is the last one in the parent.
+     */
+    default void exit(JmxElem<?> elem, JmxPath path, ElemType parentElemType, boolean isFirst, boolean isLast) {
+    }
+}
@@ -0,0 +1,68 @@
+package dev.vmix.jmxutils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class ClientPoolTest {
+
+    @ClassRule
+    public static final LoopbackConnector CONNECTOR = new LoopbackConnector();
+
+    @Test
+    public void testReuseAndReap() throws Exception {
+        AtomicInteger connects = new AtomicInteger();
+        String addr = CONNECTOR.getAddress();
+        try (ClientPool pool = new ClientPool(a -> {
+            connects.incrementAndGet();
+            return new JmxClient(addr);
+        }, 200)) {
+            Target target = Target.of("localhost", 1);
+            JmxClient first = pool.execute(target, client -> client);
+            assertThat(pool.execute(target, client -> client), is(sameInstance(first)));
+            assertThat(connects.get(), is(1));
+            long deadline = System.currentTimeMillis() + 10000;
+            while (pool.size() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(pool.size(), is(0));
+            assertThat(pool.execute(target, client -> client), is(not(sameInstance(first))));
+            assertThat(connects.get(), is(2));
+        }
+    }
+
+    @Test
+    public void testDiscardOnConnectionError() throws Exception {
+        String addr = CONNECTOR.getAddress();
+        try (ClientPool pool = new ClientPool(a -> new JmxClient(addr), 60000)) {
+            Target target = Target.of("localhost", 2);
+            JmxClient first = pool.execute(target, client -> client);
+            // An error of the command itself keeps the client.
+            try {
+                pool.execute(target, client -> {
+                    throw new IOException("output closed");
+                });
+            } catch (IOException e) {
+                // expected.
+            }
+            assertThat(pool.execute(target, client -> client), is(sameInstance(first)));
+            try {
+                pool.execute(target, client -> {
+                    client.close();
+                    return client.getMBeanNames(null);
+                });
+            } catch (RuntimeException e) {
+                // expected.
+            }
+            assertThat(pool.size(), is(0));
+            assertThat(pool.execute(target, client -> client), is(not(sameInstance(first))));
+        }
+    }
+}
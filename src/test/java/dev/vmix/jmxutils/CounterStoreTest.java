@@ -0,0 +1,60 @@
+package dev.vmix.jmxutils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class CounterStoreTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testSeriesId() throws Exception {
+        CounterStore counters = new CounterStore();
+        ObjectName memory = new ObjectName("java.lang:type=Memory");
+        ObjectName threading = new ObjectName("java.lang:type=Threading");
+        int used = counters.seriesId(memory, "HeapMemoryUsage.used");
+        int count = counters.seriesId(threading, "ThreadCount");
+        assertThat(counters.seriesId(new ObjectName("java.lang:type=Memory"), "HeapMemoryUsage.used"), is(used));
+        assertThat(count == used, is(false));
+        for (int i = 0; i < 100; i++) {
+            counters.seriesId(memory, "path" + i);
+        }
+        assertThat(counters.size(), is(102));
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        CounterStore counters = new CounterStore();
+        int id = counters.seriesId(new ObjectName("java.lang:type=Threading"), "TotalStartedThreadCount");
+        assertThat(counters.update(id, 100L, 0, true), is(CounterStore.Status.FIRST));
+        assertThat(counters.update(id, 150L, 2 * SECOND, true), is(CounterStore.Status.OK));
+        assertThat(counters.isIntegral(), is(true));
+        assertThat(counters.getLongDelta(), is(50L));
+        assertThat(counters.getRate(), is(25.0));
+        // restarted target.
+        assertThat(counters.update(id, 30L, 3 * SECOND, true), is(CounterStore.Status.RESET));
+        assertThat(counters.getLongDelta(), is(30L));
+        assertThat(counters.getRate(), is(30.0));
+        // changed type.
+        assertThat(counters.update(id, 31.5, 4 * SECOND, true), is(CounterStore.Status.FIRST));
+        assertThat(counters.update(id, 32.0, 5 * SECOND, true), is(CounterStore.Status.OK));
+        assertThat(counters.isIntegral(), is(false));
+        assertThat(counters.getDoubleDelta(), is(0.5));
+    }
+
+    @Test
+    public void testGauge() throws Exception {
+        CounterStore counters = new CounterStore();
+        int id = counters.seriesId(new ObjectName("java.lang:type=Memory"), "HeapMemoryUsage.used");
+        assertThat(counters.update(id, 500_000_000L, 0, false), is(CounterStore.Status.FIRST));
+        assertThat(counters.update(id, 100_000_000L, SECOND, false), is(CounterStore.Status.OK));
+        assertThat(counters.getLongDelta(), is(-400_000_000L));
+        assertThat(counters.getRate(), is(-400_000_000.0));
+    }
+}
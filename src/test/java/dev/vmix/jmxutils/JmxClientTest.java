@@ -0,0 +1,185 @@
+package dev.vmix.jmxutils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import dev.vmix.jmxutils.models.JmxMap;
+
+public class JmxClientTest {
+
+    public interface SampleMBean {
+
+        int getCount();
+
+        String getName();
+
+        String getBroken();
+    }
+
+    public static class Sample implements SampleMBean {
+
+        @Override
+        public int getCount() {
+            return 42;
+        }
+
+        @Override
+        public String getName() {
+            return "sample";
+        }
+
+        @Override
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    public interface OtherMBean {
+
+        long getValue();
+    }
+
+    public static class Other implements OtherMBean {
+
+        @Override
+        public long getValue() {
+            return 1L;
+        }
+    }
+
+    public interface SlowMBean {
+
+        int getValue();
+    }
+
+    public static class Slow implements SlowMBean {
+
+        @Override
+        public int getValue() {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        }
+    }
+
+    private static final MBeanServer SERVER = ManagementFactory.getPlatformMBeanServer();
+
+    @ClassRule
+    public static final LoopbackConnector CONNECTOR = new LoopbackConnector();
+
+    @Test
+    public void testGetMBeanInfo() throws Exception {
+        ObjectName name = new ObjectName("dev.vmix.jmxutils.test:type=Sample");
+        SERVER.registerMBean(new Sample(), name);
+        try (JmxClient client = new JmxClient(CONNECTOR.getAddress())) {
+            JmxMap map = client.getMBeanInfo(name.getCanonicalName());
+            assertThat(map.get("Count").getValue(), is(42));
+            assertThat(map.get("Name").getValue(), is("sample"));
+            assertThat((String) map.get("Broken").getValue(), startsWith("[javax.management.RuntimeMBeanException]"));
+        } finally {
+            SERVER.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testFindMBeanNames() throws Exception {
+        assertThat(JmxClient.parseObjectNamePattern("java.lang:type=*"), is(new ObjectName("java.lang:type=*")));
+        assertThat(JmxClient.parseObjectNamePattern("java.lang:type=.*"), is((ObjectName) null));
+        assertThat(JmxClient.parseObjectNamePattern("java.lang:type=Mem"), is((ObjectName) null));
+        ObjectName memory = new ObjectName("java.lang:type=Memory");
+        assertThat(JmxClient.newNameMatcher("java.lang:type=Mem").test(memory), is(true));
+        assertThat(JmxClient.newNameMatcher("java.lang:type=.*").test(memory), is(true));
+        assertThat(JmxClient.newNameMatcher("java.lang:name=*,*").test(memory), is(false));
+        try (JmxClient client = new JmxClient(CONNECTOR.getAddress())) {
+            assertThat(client.findMBeanNames("java.lang:type=.*").contains(memory), is(true));
+            assertThat(client.findMBeanNames("java.lang:type=Mem").contains(memory), is(true));
+            assertThat(client.findMBeanNames("java.lang:type=*").contains(memory), is(true));
+        }
+    }
+
+    @Test
+    public void testStreamMBeanInfo() throws Exception {
+        ObjectName name = new ObjectName("dev.vmix.jmxutils.test:type=Streamed");
+        SERVER.registerMBean(new Sample(), name);
+        try (JmxClient client = new JmxClient(CONNECTOR.getAddress())) {
+            List<String> attrNames = new ArrayList<>();
+            client.streamMBeanInfo(name, (attrName, value, typeName, description) -> attrNames.add(attrName));
+            List<String> expected = new ArrayList<>(client.getMBeanInfo(name).getValue().keySet());
+            assertThat(attrNames, is(expected));
+        } finally {
+            SERVER.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testStreamSelectedAttributes() throws Exception {
+        ObjectName name = new ObjectName("dev.vmix.jmxutils.test:type=Selected");
+        SERVER.registerMBean(new Sample(), name);
+        try (JmxClient client = new JmxClient(CONNECTOR.getAddress())) {
+            List<String> attrNames = new ArrayList<>();
+            client.streamMBeanInfo(name, Arrays.asList("Name", "Count"),
+                (attrName, value, typeName, description) -> attrNames.add(attrName));
+            assertThat(attrNames, is(Arrays.asList("Name", "Count")));
+            try {
+                client.streamMBeanInfo(name, Arrays.asList("Missing"), (attrName, value, typeName, description) -> {
+                });
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage(), startsWith("No readable attribute: Missing"));
+            }
+        } finally {
+            SERVER.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testMetadataCache() throws Exception {
+        ObjectName name = new ObjectName("dev.vmix.jmxutils.test:type=Cached");
+        SERVER.registerMBean(new Sample(), name);
+        try (JmxClient client = new JmxClient(CONNECTOR.getAddress())) {
+            client.enableMetadataCache(16);
+            MBeanInfo info = client.getMBeanMetadata(name);
+            assertThat(client.getMBeanMetadata(name), is(sameInstance(info)));
+            SERVER.unregisterMBean(name);
+            SERVER.registerMBean(new Other(), name);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (client.getMBeanMetadata(name) == info && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(client.getMBeanMetadata(name).getClassName(), is(Other.class.getName()));
+            assertThat(client.getMBeanMetadata(name), is(not(sameInstance(info))));
+        } finally {
+            SERVER.unregisterMBean(name);
+        }
+    }
+
+    @Test(expected = JmxTimeoutException.class)
+    public void testCallTimeout() throws Exception {
+        ObjectName name = new ObjectName("dev.vmix.jmxutils.test:type=Slow");
+        SERVER.registerMBean(new Slow(), name);
+        try (JmxClient client = new JmxClient(CONNECTOR.getAddress(), 5000, 300)) {
+            client.getMBeanInfo(name);
+        } finally {
+            SERVER.unregisterMBean(name);
+        }
+    }
+}
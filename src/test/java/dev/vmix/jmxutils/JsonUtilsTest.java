@@ -0,0 +1,34 @@
+package dev.vmix.jmxutils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+public class JsonUtilsTest {
+
+    @Test
+    public void testNonString() {
+        assertThat(JsonUtils.encodeEntity(null), is("null"));
+        assertThat(JsonUtils.encodeEntity(true), is("true"));
+        assertThat(JsonUtils.encodeEntity(-123L), is("-123"));
+        assertThat(JsonUtils.encodeEntity(1.5), is("1.5"));
+    }
+
+    @Test
+    public void testEscape() {
+        assertThat(JsonUtils.encodeEntity("plain"), is("\"plain\""));
+        assertThat(JsonUtils.encodeEntity(""), is("\"\""));
+        assertThat(JsonUtils.encodeEntity("a\"b\\c"), is("\"a\\\"b\\\\c\""));
+        assertThat(JsonUtils.encodeEntity("\b\f\n\r\t"), is("\"\\b\\f\\n\\r\\t\""));
+        assertThat(JsonUtils.encodeEntity("\u0000x\u001f\u007f"), is("\"\\u0000x\\u001f\u007f\""));
+        assertThat(JsonUtils.encodeEntity("\u0085\u2028\u2029\u3042"), is("\"\\u0085\\u2028\\u2029\u3042\""));
+    }
+
+    @Test
+    public void testAppend() {
+        StringBuilder buf = new StringBuilder("[");
+        JsonUtils.encodeEntity("x\ny", buf).append(']');
+        assertThat(buf.toString(), is("[\"x\\ny\"]"));
+    }
+}
@@ -0,0 +1,137 @@
+package dev.vmix.jmxutils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+import org.junit.Test;
+
+import dev.vmix.jmxutils.models.JmxElemUtils;
+import dev.vmix.jmxutils.models.JmxMap;
+
+public class JsonWriterTest {
+
+    private static JmxMap newMap() {
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("a", 1L);
+        inner.put("b", "x\"y");
+        JmxMap map = JmxElemUtils.newEmptyMap(null, "Test", null);
+        map.put("Int", 10, "int", null);
+        map.put("List", Arrays.asList("p", "q"), null, "desc");
+        map.put("Map", inner, null, null);
+        map.put("Empty", new LinkedHashMap<>(), null, null);
+        return map;
+    }
+
+    private static String render(JmxMap map, boolean verbose, boolean compact) throws IOException {
+        StringWriter sw = new StringWriter();
+        JsonWriter writer = new JsonWriter(sw, verbose, compact);
+        writer.beginDocument();
+        writer.writeContents(map);
+        writer.endDocument();
+        return sw.toString();
+    }
+
+    @Test
+    public void testIndented() throws IOException {
+        String expected = String.join(System.lineSeparator(),
+            "{",
+            "  \"Int\": 10,",
+            "  \"List\": [",
+            "    \"p\",",
+            "    \"q\"",
+            "  ],",
+            "  \"Map\": {",
+            "    \"a\": 1,",
+            "    \"b\": \"x\\\"y\"",
+            "  },",
+            "  \"Empty\": {",
+            "  }",
+            "}",
+            "");
+        assertThat(render(newMap(), false, false), is(expected));
+    }
+
+    @Test
+    public void testVerbose() throws IOException {
+        String expected = String.join(System.lineSeparator(),
+            "{",
+            "  \"Int\": [\"int\", 10],",
+            "  \"List\": [\"java.util.Arrays.ArrayList\", [",
+            "    [\"java.lang.String\", \"p\"],",
+            "    [\"java.lang.String\", \"q\"]",
+            "  ], \"desc\"],",
+            "  \"Map\": [\"java.util.LinkedHashMap\", {",
+            "    \"a\": [\"java.lang.Long\", 1],",
+            "    \"b\": [\"java.lang.String\", \"x\\\"y\"]",
+            "  }],",
+            "  \"Empty\": [\"java.util.LinkedHashMap\", {",
+            "  }]",
+            "}",
+            "");
+        assertThat(render(newMap(), true, false), is(expected));
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        String expected = "{\"Int\":10,\"List\":[\"p\",\"q\"],\"Map\":{\"a\":1,\"b\":\"x\\\"y\"},\"Empty\":{}}"
+            + System.lineSeparator();
+        assertThat(render(newMap(), false, true), is(expected));
+    }
+
+    @Test
+    public void testPrimitiveArray() throws IOException {
+        JmxMap primitives = JmxElemUtils.newEmptyMap(null, "Test", null);
+        primitives.put("long", new long[] { 1L, -2L, Long.MAX_VALUE }, null, null);
+        primitives.put("double", new double[] { 0.5, -1e300 }, null, null);
+        primitives.put("boolean", new boolean[] { true, false }, null, null);
+        primitives.put("char", new char[] { 'a', '"' }, null, null);
+        primitives.put("empty", new int[0], null, null);
+        JmxMap boxed = JmxElemUtils.newEmptyMap(null, "Test", null);
+        boxed.put("long", new Long[] { 1L, -2L, Long.MAX_VALUE }, null, null);
+        boxed.put("double", new Double[] { 0.5, -1e300 }, null, null);
+        boxed.put("boolean", new Boolean[] { true, false }, null, null);
+        boxed.put("char", new Character[] { 'a', '"' }, null, null);
+        boxed.put("empty", new Integer[0], null, null);
+        assertThat(render(primitives, false, false), is(render(boxed, false, false)));
+        assertThat(render(primitives, false, true), is(render(boxed, false, true)));
+    }
+
+    @Test
+    public void testRowLimit() throws Exception {
+        CompositeType rowType = new CompositeType("Entry", "Entry", new String[] { "key", "value" },
+            new String[] { "key", "value" }, new OpenType<?>[] { SimpleType.STRING, SimpleType.INTEGER });
+        TabularDataSupport table = new TabularDataSupport(new TabularType("Table", "Table", rowType,
+            new String[] { "key" }));
+        for (int i = 0; i < 3; i++) {
+            table.put(new CompositeDataSupport(rowType, new String[] { "key", "value" }, new Object[] { "k" + i, i }));
+        }
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("Table", table);
+        JmxMap map = JmxElemUtils.newEmptyMap(null, "Test", null);
+        map.put("Map", inner, null, null);
+        StringWriter sw = new StringWriter();
+        JsonWriter writer = new JsonWriter(sw, false, true, 2);
+        writer.beginDocument();
+        writer.write("Table", JmxElemUtils.wrap("Table", table, null, null));
+        writer.writeContents(map);
+        writer.endDocument();
+        String rows = "{\"k0\":0,\"k1\":1,\"...\":\"[omitted] 1 more rows\"}";
+        assertThat(sw.toString(), is("{\"Table\":" + rows + ",\"Map\":{\"Table\":" + rows + "}}"
+            + System.lineSeparator()));
+        // The limit belongs to the writer, and the table itself is not changed.
+        assertThat(render(map, false, true).contains("\"k2\":2"), is(true));
+    }
+}
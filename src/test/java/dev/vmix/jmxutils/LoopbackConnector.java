@@ -0,0 +1,44 @@
+package dev.vmix.jmxutils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.junit.rules.ExternalResource;
+
+/**
+ * JMX connector server of the platform MBeanServer on the loopback address, used as a class rule.
+ */
+public class LoopbackConnector extends ExternalResource {
+
+    private JMXConnectorServer connectorServer;
+
+    @Override
+    protected void before() throws IOException {
+        JMXServiceURL url = new JMXServiceURL("service:jmx:rmi://localhost");
+        connectorServer = JMXConnectorServerFactory.newJMXConnectorServer(url, null,
+            ManagementFactory.getPlatformMBeanServer());
+        connectorServer.start();
+    }
+
+    @Override
+    protected void after() {
+        try {
+            connectorServer.stop();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Get address of the connector server.
+     *
+     * @return JMX service URL.
+     */
+    public String getAddress() {
+        return connectorServer.getAddress().toString();
+    }
+}
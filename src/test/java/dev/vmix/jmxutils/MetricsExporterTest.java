@@ -0,0 +1,69 @@
+package dev.vmix.jmxutils;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class MetricsExporterTest {
+
+    @ClassRule
+    public static final LoopbackConnector CONNECTOR = new LoopbackConnector();
+
+    @Test
+    public void testMayMatchAttribute() {
+        MetricRule rule = MetricRule.parse("java.lang:type=Memory HeapMemoryUsage\\.used");
+        assertThat(rule.mayMatchAttribute("HeapMemoryUsage"), is(true));
+        assertThat(rule.mayMatchAttribute("NonHeapMemoryUsage"), is(false));
+        assertThat(rule.matchesPath("HeapMemoryUsage.used"), is(true));
+        assertThat(rule.matchesPath("HeapMemoryUsage.max"), is(false));
+    }
+
+    @Test
+    public void testLabels() throws MalformedObjectNameException {
+        ObjectName objectName = new ObjectName("test:type=T,a.b=1,a-b=2,target=3");
+        assertThat(MetricsExporter.labels(objectName, null), is("{a_b=\"2\",a_b_2=\"1\",target=\"3\"}"));
+        assertThat(MetricsExporter.labels(objectName, Target.of("localhost", 1)),
+            is("{a_b=\"2\",a_b_2=\"1\",target_2=\"3\",target=\"localhost:1\"}"));
+    }
+
+    @Test
+    public void testScrape() throws IOException {
+        String addr = CONNECTOR.getAddress();
+        ClientPool pool = new ClientPool(a -> {
+            JmxClient client = new JmxClient(addr);
+            client.enableMetadataCache(64);
+            return client;
+        }, 60000);
+        MetricsExporter exporter = new MetricsExporter(pool, Collections.singletonList(Target.of("localhost", 1)),
+            Arrays.asList(MetricRule.parse("java.lang:type=Memory HeapMemoryUsage\\..*"),
+                MetricRule.parse("java.lang:type=MemoryPool,* Usage\\.used pool"),
+                MetricRule.parse("java.lang:type=Threading ThreadCount jvm-threads")));
+        try {
+            StringWriter sw = new StringWriter();
+            exporter.scrape(sw);
+            String text = sw.toString();
+            assertThat(text, containsString("# TYPE java_lang_Memory_HeapMemoryUsage_used gauge\n"));
+            assertThat(text, containsString("\njava_lang_Memory_HeapMemoryUsage_used "));
+            assertThat(text, containsString("\npool_Usage_used{name=\""));
+            assertThat(text, containsString("\njvm_threads_ThreadCount "));
+            assertThat(text, not(containsString("NonHeapMemoryUsage")));
+            assertThat(text, containsString("\njmxutils_up{target=\"localhost:1\"} 1\n"));
+            assertThat(text, endsWith("# EOF\n"));
+        } finally {
+            exporter.stop();
+        }
+    }
+}
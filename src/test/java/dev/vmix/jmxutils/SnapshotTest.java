@@ -0,0 +1,98 @@
+package dev.vmix.jmxutils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dev.vmix.jmxutils.models.JmxElem;
+import dev.vmix.jmxutils.models.JmxElemUtils;
+import dev.vmix.jmxutils.models.JmxMap;
+
+public class SnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static JmxMap newBean(String name, long counter) {
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("a", 1L);
+        inner.put("b", "x\"yあ");
+        JmxMap map = JmxElemUtils.newEmptyMap(name, "Test", "test bean");
+        map.put("Int", 10, "int", null);
+        map.put("Counter", counter, "long", "counter");
+        map.put("Null", null, "java.lang.String", null);
+        map.put("Double", -1.5, null, null);
+        map.put("Big", new BigInteger("123456789012345678901234567890"), null, null);
+        map.put("List", Arrays.asList("p", true, 'c'), null, "desc");
+        map.put("Longs", new long[] { 0, -1, Long.MAX_VALUE, Long.MIN_VALUE }, null, null);
+        map.put("Chars", new char[] { 'a', '\n' }, null, null);
+        map.put("Map", inner, null, null);
+        map.put("Empty", new LinkedHashMap<>(), null, null);
+        return map;
+    }
+
+    private static String render(JmxElem<?> elem) throws IOException {
+        StringWriter sw = new StringWriter();
+        JsonWriter writer = new JsonWriter(sw, true, true);
+        writer.beginDocument();
+        writer.writeContents(elem);
+        writer.endDocument();
+        return sw.toString();
+    }
+
+    private File write(String fileName, long counter) throws IOException {
+        File file = folder.newFile(fileName);
+        try (SnapshotWriter writer = new SnapshotWriter(file.toPath())) {
+            writer.writeBean("test:type=A", newBean("test:type=A", 0));
+            writer.writeBean("test:type=B", newBean("test:type=B", counter));
+            writer.writeBean("test:type=C", JmxElemUtils.wrap("test:type=C", "[Error] failed", null, null));
+        }
+        return file;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        try (Snapshot snapshot = Snapshot.open(write("a.snap", 1).toPath())) {
+            assertThat(snapshot.getNames(), is(Arrays.asList("test:type=A", "test:type=B", "test:type=C")));
+            JmxElem<?> bean = snapshot.load("test:type=B");
+            assertThat(bean.getName(), is("test:type=B"));
+            assertThat(bean.getValueTypeName(), is("Test"));
+            assertThat(bean.getDescription(), is("test bean"));
+            assertThat(render(bean), is(render(newBean("test:type=B", 1))));
+            assertThat(snapshot.load("test:type=C").getValue(), is("[Error] failed"));
+        }
+    }
+
+    @Test
+    public void testDiff() throws IOException {
+        try (Snapshot a1 = Snapshot.open(write("a1.snap", 1).toPath());
+            Snapshot a2 = Snapshot.open(write("a2.snap", 1).toPath());
+            Snapshot b = Snapshot.open(write("b.snap", 2).toPath())) {
+            assertThat(a1.getHash("test:type=B"), is(a2.getHash("test:type=B")));
+            assertThat(a1.getHash("test:type=A"), not(a1.getHash("test:type=B")));
+            assertThat(a1.diff(a2).isEmpty(), is(true));
+            Map<String, Snapshot.Change> expected = new LinkedHashMap<>();
+            expected.put("test:type=B", Snapshot.Change.CHANGED);
+            assertThat(a1.diff(b), is(expected));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNameMismatch() throws IOException {
+        try (SnapshotWriter writer = new SnapshotWriter(folder.newFile("m.snap").toPath())) {
+            writer.writeBean("test:type=A", newBean("test:type=B", 0));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package dev.vmix.jmxutils;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.ObjectName;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class SubscriberTest {
+
+    public interface EmitterMBean {
+
+        int getValue();
+    }
+
+    public static class Emitter extends NotificationBroadcasterSupport implements EmitterMBean {
+
+        private long sequence = 0;
+
+        @Override
+        public int getValue() {
+            return 0;
+        }
+
+        public void emit(String message) {
+            sendNotification(new Notification("test.emit", this, ++sequence, message));
+        }
+    }
+
+    @ClassRule
+    public static final LoopbackConnector CONNECTOR = new LoopbackConnector();
+
+    @Test
+    public void testSubscribeLaterRegistered() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("test.subscriber:type=Emitter");
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (JmxClient client = new JmxClient(CONNECTOR.getAddress());
+            PrintStream out = new PrintStream(buf, true, "UTF-8")) {
+            Subscriber subscriber = new Subscriber(client, out, new ObjectName("test.subscriber:*"), 16, 2);
+            Thread thread = new Thread(() -> {
+                try {
+                    subscriber.run();
+                } catch (IOException | InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            thread.start();
+            Emitter emitter = new Emitter();
+            server.registerMBean(emitter, name);
+            try {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (subscriber.getSubscribedCount() == 0 && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertThat(subscriber.getSubscribedCount(), is(1));
+                // The listener may not be added on the server yet.
+                while (thread.isAlive() && System.nanoTime() < deadline) {
+                    emitter.emit("hello");
+                    thread.join(50);
+                }
+                assertThat(thread.isAlive(), is(false));
+            } finally {
+                server.unregisterMBean(name);
+            }
+        }
+        String[] lines = new String(buf.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(lines[0], containsString("\"source\":\"test.subscriber:type=Emitter\""));
+        assertThat(lines[0], containsString("\"type\":\"test.emit\""));
+        assertThat(lines[0], containsString("\"message\":\"hello\""));
+        assertThat(lines[1], containsString("\"type\":\"test.emit\""));
+    }
+}
@@ -0,0 +1,76 @@
+package dev.vmix.jmxutils.models;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import dev.vmix.jmxutils.models.JmxElem.ElemType;
+
+public class JmxCursorTest {
+
+    private static JmxMap newMap() {
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("a", 1L);
+        inner.put("b", new int[] { 2, 3 });
+        JmxMap map = JmxElemUtils.newEmptyMap(null, "Test", null);
+        map.put("x", "v", null, null);
+        map.put("y", inner, null, null);
+        map.put("z", Arrays.asList(), null, null);
+        return map;
+    }
+
+    @Test
+    public void testEvents() {
+        List<String> events = new ArrayList<>();
+        JmxCursor cursor = new JmxCursor(newMap());
+        while (cursor.next()) {
+            events.add(cursor.getEvent() + " " + cursor.getPath() + (cursor.isFirst() ? " F" : "")
+                + (cursor.isLast() ? " L" : ""));
+        }
+        assertThat(events, is(Arrays.asList(
+            "ENTITY x F",
+            "ENTER y",
+            "ENTITY y.a F",
+            "ENTER y.b L",
+            "ENTITY y.b.0 F",
+            "ENTITY y.b.1 L",
+            "EXIT y.b L",
+            "EXIT y",
+            "ENTER z L",
+            "EXIT z L")));
+    }
+
+    @Test
+    public void testSkipChildren() {
+        List<String> paths = new ArrayList<>();
+        newMap().accept(new JmxVisitor() {
+
+            @Override
+            public void visit(JmxElem<?> elem, JmxPath path, ElemType parentElemType, boolean isFirst,
+                boolean isLast) {
+                paths.add(path.toString());
+            }
+
+            @Override
+            public boolean enter(JmxElem<?> elem, JmxPath path, ElemType parentElemType, boolean isFirst,
+                boolean isLast) {
+                paths.add("+" + path);
+                return !path.toString().equals("y.b");
+            }
+
+            @Override
+            public void exit(JmxElem<?> elem, JmxPath path, ElemType parentElemType, boolean isFirst,
+                boolean isLast) {
+                paths.add("-" + path);
+            }
+        });
+        assertThat(paths, is(Arrays.asList("x", "+y", "y.a", "+y.b", "-y.b", "-y", "+z", "-z")));
+    }
+}
@@ -0,0 +1,77 @@
+package dev.vmix.jmxutils.models;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class JmxDiffTest {
+
+    private static JmxMap newMap(long a, Object b, List<?> list) {
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("a", a);
+        inner.put("b", b);
+        JmxMap map = JmxElemUtils.newEmptyMap(null, "Test", null);
+        map.put("x", "v", null, null);
+        map.put("y", inner, null, null);
+        map.put("z", list, null, null);
+        return map;
+    }
+
+    private static List<String> diff(JmxElem<?> oldElem, JmxElem<?> newElem) {
+        List<String> result = new ArrayList<>();
+        JmxDiff.diff(oldElem, newElem, new JmxDiff.Listener() {
+
+            @Override
+            public void added(JmxPath path, JmxElem<?> elem) {
+                result.add("+" + path);
+            }
+
+            @Override
+            public void removed(JmxPath path, JmxElem<?> elem) {
+                result.add("-" + path);
+            }
+
+            @Override
+            public void changed(JmxPath path, JmxElem<?> oldElem, JmxElem<?> newElem) {
+                result.add("~" + path + "=" + oldElem.getValue() + "->" + newElem.getValue());
+            }
+        });
+        return result;
+    }
+
+    @Test
+    public void testSame() {
+        JmxMap map = newMap(1L, new int[] { 2, 3 }, Arrays.asList("p"));
+        assertThat(diff(map, newMap(1L, new int[] { 2, 3 }, Arrays.asList("p"))), is(Arrays.asList()));
+    }
+
+    @Test
+    public void testChanged() {
+        JmxMap oldMap = newMap(1L, new int[] { 2, 3 }, Arrays.asList("p", "q"));
+        JmxMap newMap = newMap(5L, new int[] { 2, 4, 5 }, Arrays.asList("p"));
+        assertThat(diff(oldMap, newMap), is(Arrays.asList("~y.a=1->5", "~y.b.1=3->4", "+y.b.2", "-z.1")));
+        // Number and string are different even if they look the same.
+        assertThat(diff(newMap(1L, "1", Arrays.asList()), newMap(1L, 1L, Arrays.asList())),
+            is(Arrays.asList("~y.b=1->1")));
+    }
+
+    @Test
+    public void testKeyOrder() {
+        JmxMap oldMap = JmxElemUtils.newEmptyMap(null, null, null);
+        oldMap.put("a", 1L, null, null);
+        oldMap.put("b", 2L, null, null);
+        oldMap.put("c", 3L, null, null);
+        JmxMap newMap = JmxElemUtils.newEmptyMap(null, null, null);
+        newMap.put("a", 1L, null, null);
+        newMap.put("d", 4L, null, null);
+        newMap.put("c", 30L, null, null);
+        assertThat(diff(oldMap, newMap), is(Arrays.asList("-b", "~c=3->30", "+d")));
+    }
+}
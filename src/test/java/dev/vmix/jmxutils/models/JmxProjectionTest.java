@@ -0,0 +1,104 @@
+package dev.vmix.jmxutils.models;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+import org.junit.Test;
+
+public class JmxProjectionTest {
+
+    private static CompositeDataSupport newUsage() throws Exception {
+        CompositeType type = new CompositeType("Usage", "Memory usage", new String[] { "max", "used" },
+            new String[] { "max bytes", "used bytes" }, new OpenType<?>[] { SimpleType.LONG, SimpleType.LONG });
+        return new CompositeDataSupport(type, new String[] { "max", "used" }, new Object[] { 100L, 10L });
+    }
+
+    @Test
+    public void testParse() {
+        Map<String, JmxProjection> projections = JmxProjection.parse(
+            Arrays.asList("A.b.c", "B", "A.d", "A.b"));
+        assertThat(new ArrayList<>(projections.keySet()), is(Arrays.asList("A", "B")));
+        assertThat(projections.get("A").isWhole(), is(false));
+        assertThat(projections.get("B").isWhole(), is(true));
+        // A whole selection absorbs its sub-paths.
+        assertThat(JmxProjection.parse(Arrays.asList("A.b", "A")).get("A").isWhole(), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalid() {
+        JmxProjection.parse(Arrays.asList("A..b"));
+    }
+
+    @Test
+    public void testComposite() throws Exception {
+        JmxProjection projection = JmxProjection.parse(Arrays.asList("Usage.used", "Usage.none")).get("Usage");
+        JmxMap map = (JmxMap) projection.wrap("Usage", newUsage(), null, null);
+        assertThat(new ArrayList<>(map.getValue().keySet()), is(Arrays.asList("used", "none")));
+        assertThat(map.get("used").getValue(), is(10L));
+        assertThat(map.get("none").getValue(), nullValue());
+    }
+
+    @Test
+    public void testList() throws Exception {
+        JmxProjection projection = JmxProjection.parse(Arrays.asList("Ids.1", "Ids.5", "Ids.x")).get("Ids");
+        JmxMap map = (JmxMap) projection.wrap("Ids", new long[] { 7L, 8L, 9L }, null, null);
+        assertThat(map.get("1").getValue(), is(8L));
+        assertThat(map.get("5").getValue(), nullValue());
+        assertThat(map.get("x").getValue(), nullValue());
+        JmxProjection nested = JmxProjection.parse(Arrays.asList("Usages.0.max")).get("Usages");
+        JmxMap nestedMap = (JmxMap) nested.wrap("Usages", Arrays.asList(newUsage()), null, null);
+        assertThat(((JmxMap) nestedMap.get("0")).get("max").getValue(), is(100L));
+    }
+
+    @Test
+    public void testDottedKey() throws Exception {
+        // Same as SystemProperties of java.lang:type=Runtime.
+        CompositeType rowType = new CompositeType("Entry", "Entry", new String[] { "key", "value" },
+            new String[] { "key", "value" }, new OpenType<?>[] { SimpleType.STRING, SimpleType.STRING });
+        TabularDataSupport props = new TabularDataSupport(new TabularType("Props", "Props", rowType,
+            new String[] { "key" }));
+        props.put(new CompositeDataSupport(rowType, new String[] { "key", "value" }, new Object[] { "java", "x" }));
+        props.put(new CompositeDataSupport(rowType, new String[] { "key", "value" },
+            new Object[] { "java.version", "1.8" }));
+        JmxProjection projection = JmxProjection.parse(
+            Arrays.asList("Props.java.version", "Props.java", "Props.java.none")).get("Props");
+        JmxMap map = (JmxMap) projection.wrap("Props", props, null, null);
+        assertThat(new ArrayList<>(map.getValue().keySet()), is(Arrays.asList("java.version", "java")));
+        assertThat(map.get("java.version").getValue(), is("1.8"));
+        assertThat(map.get("java").getValue(), is("x"));
+    }
+
+    @Test
+    public void testTableRow() throws Exception {
+        CompositeType rowType = new CompositeType("Row", "Row", new String[] { "id", "name", "usage" },
+            new String[] { "id", "name", "usage" },
+            new OpenType<?>[] { SimpleType.INTEGER, SimpleType.STRING, newUsage().getCompositeType() });
+        TabularDataSupport rows = new TabularDataSupport(new TabularType("Rows", "Rows", rowType,
+            new String[] { "id", "name" }));
+        rows.put(new CompositeDataSupport(rowType, new String[] { "id", "name", "usage" },
+            new Object[] { 1, "a,b", newUsage() }));
+        JmxProjection projection = JmxProjection.parse(Arrays.asList("Rows.[1, a\\,b].usage.used", "Rows.[2, c]"))
+            .get("Rows");
+        JmxMap map = (JmxMap) projection.wrap("Rows", rows, null, null);
+        JmxMap row = (JmxMap) map.get("[1, a\\,b]");
+        assertThat(new ArrayList<>(row.getValue().keySet()), is(Arrays.asList("usage")));
+        assertThat(((JmxMap) row.get("usage")).get("used").getValue(), is(10L));
+        assertThat(map.get("[2, c]").getValue(), nullValue());
+        JmxProjection items = JmxProjection.parse(Arrays.asList("Items.1.max")).get("Items");
+        JmxMap itemMap = (JmxMap) items.wrap("Items", new Object[] { null, newUsage() }, null, null);
+        assertThat(((JmxMap) itemMap.get("1")).getValue().keySet(), is(Collections.singleton("max")));
+    }
+}
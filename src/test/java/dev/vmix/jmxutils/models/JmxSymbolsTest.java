@@ -0,0 +1,40 @@
+package dev.vmix.jmxutils.models;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+
+import org.junit.Test;
+
+public class JmxSymbolsTest {
+
+    private static CompositeDataSupport newComposite() throws Exception {
+        // A new instance per call, as deserialized by each remote call.
+        CompositeType type = new CompositeType(new String("Usage"), new String("Memory usage"),
+            new String[] { "used" }, new String[] { "used bytes" }, new OpenType<?>[] { SimpleType.LONG });
+        return new CompositeDataSupport(type, new String[] { "used" }, new Object[] { 1L });
+    }
+
+    @Test
+    public void testIntern() {
+        String str = JmxSymbols.intern(new String("java.lang.Long"));
+        assertThat(JmxSymbols.intern(new String("java.lang.Long")), sameInstance(str));
+        assertThat(JmxSymbols.intern(null), is((String) null));
+        assertThat(JmxSymbols.typeName(Long.class), is("java.lang.Long"));
+        assertThat(JmxSymbols.typeName(Long.class), sameInstance(JmxSymbols.typeName(Long.class)));
+    }
+
+    @Test
+    public void testSharedByElements() throws Exception {
+        JmxMap map1 = (JmxMap) JmxElemUtils.wrap("Usage", newComposite(), null, null);
+        JmxMap map2 = (JmxMap) JmxElemUtils.wrap("Usage", newComposite(), null, null);
+        assertThat(map1.getValueTypeName(), sameInstance(map2.getValueTypeName()));
+        assertThat(map1.getDescription(), sameInstance(map2.getDescription()));
+        assertThat(map1.get("used").getValueTypeName(), sameInstance(map2.get("used").getValueTypeName()));
+    }
+}
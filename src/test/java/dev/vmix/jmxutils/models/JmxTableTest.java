@@ -0,0 +1,50 @@
+package dev.vmix.jmxutils.models;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+import org.junit.Test;
+
+public class JmxTableTest {
+
+    private static TabularDataSupport newTable(String[] indexNames, Object[]... rows) throws Exception {
+        CompositeType rowType = new CompositeType("Row", "Row", new String[] { "a", "b", "n" },
+            new String[] { "a", "b", "n" }, new OpenType<?>[] { SimpleType.STRING, SimpleType.STRING,
+                SimpleType.INTEGER });
+        TabularDataSupport table = new TabularDataSupport(new TabularType("Table", "Table", rowType, indexNames));
+        for (Object[] row : rows) {
+            table.put(new CompositeDataSupport(rowType, new String[] { "a", "b", "n" }, row));
+        }
+        return table;
+    }
+
+    @Test
+    public void testMultiIndexKey() throws Exception {
+        TabularDataSupport table = newTable(new String[] { "a", "b" },
+            new Object[] { "x,y", "z", 1 }, new Object[] { "x", "y,z", 2 }, new Object[] { "p", "q", 3 });
+        JmxTable elem = (JmxTable) JmxElemUtils.wrap("Table", table, null, null);
+        assertThat(new ArrayList<>(elem.getValue().keySet()),
+            is(Arrays.asList("[p, q]", "[x, y\\,z]", "[x\\,y, z]")));
+        assertThat(((JmxMap) elem.get("[x, y\\,z]")).get("n").getValue(), is(2));
+    }
+
+    @Test
+    public void testOmittedKey() throws Exception {
+        TabularDataSupport table = newTable(new String[] { "a" },
+            new Object[] { "...", "", 1 }, new Object[] { "....", "", 2 }, new Object[] { "x", "", 3 });
+        JmxTable elem = ((JmxTable) JmxElemUtils.wrap("Table", table, null, null)).limitRows(2);
+        assertThat(elem.getOmittedRows(), is(1));
+        assertThat(new ArrayList<>(elem.getValue().keySet()), is(Arrays.asList("...", "....", ".....")));
+        assertThat(elem.get("...").getElemType(), is(JmxElem.ElemType.MAP));
+    }
+}